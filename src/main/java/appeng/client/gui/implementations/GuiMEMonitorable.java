@@ -147,6 +147,11 @@ public class GuiMEMonitorable extends AEBaseMEGui implements ISortSource, IConfi
 		setScrollBar();
 	}
 
+	public void clearItems()
+	{
+		repo.clear();
+	}
+
 	private void setScrollBar()
 	{
 		myScrollBar.setTop( 18 ).setLeft( 175 ).setHeight( rows * 18 - 2 );
@@ -22,6 +22,10 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import net.minecraft.item.ItemStack;
@@ -45,6 +49,11 @@ import cpw.mods.fml.relauncher.ReflectionHelper;
 public class ItemRepo
 {
 
+	// changes to insert one by one into the sorted view, more than this and it is sorted again.
+	private static final int MAX_INSERTED_CHANGES = 256;
+
+	private static final Pattern REGEX_SYNTAX = Pattern.compile( "[\\\\^$.|?*+()\\[\\]{}]" );
+
 	final private IItemList<IAEItemStack> list = AEApi.instance().storage().createItemList();
 	final private ArrayList<IAEItemStack> view = new ArrayList<IAEItemStack>();
 	final private ArrayList<ItemStack> dsp = new ArrayList<ItemStack>();
@@ -56,6 +65,16 @@ public class ItemRepo
 	public String searchString = "";
 	private String innerSearch = "";
 
+	final private HashMap<IAEItemStack, SearchKey> keys = new HashMap<IAEItemStack, SearchKey>();
+
+	// items updated since the view was last built or patched.
+	final private HashSet<IAEItemStack> changed = new HashSet<IAEItemStack>();
+
+	// what the current view was built for, null when it needs a full rebuild.
+	private Filter lastFilter;
+	private Enum lastSortBy;
+	private Enum lastSortDir;
+
 	public ItemRepo(IScrollSource src, ISortSource sortSrc)
 	{
 		this.src = src;
@@ -96,6 +115,8 @@ public class ItemRepo
 		}
 		else
 			list.add( is );
+
+		changed.add( is );
 	}
 
 	IPartitionList<IAEItemStack> myPartitionList;
@@ -103,6 +124,7 @@ public class ItemRepo
 	public void setViewCell(ItemStack[] list)
 	{
 		myPartitionList = ItemViewCell.createFilter( list );
+		lastFilter = null;
 		updateView();
 	}
 
@@ -134,12 +156,6 @@ public class ItemRepo
 
 	public void updateView()
 	{
-		view.clear();
-		dsp.clear();
-
-		view.ensureCapacity( list.size() );
-		dsp.ensureCapacity( list.size() );
-
 		Enum viewMode = sortSrc.getSortDisplay();
 		Enum searchMode = AEConfig.instance.settings.getSetting( Settings.SEARCH_MODE );
 		if ( searchMode == SearchBoxMode.NEI_AUTOSEARCH || searchMode == SearchBoxMode.NEI_MANUAL_SEARCH )
@@ -156,34 +172,215 @@ public class ItemRepo
 			innerSearch = innerSearch.substring( 1 );
 		}
 
-		Pattern m = null;
+		Filter filter;
 		try
 		{
-			m = Pattern.compile( innerSearch.toLowerCase(), Pattern.CASE_INSENSITIVE );
+			filter = new Filter( viewMode, searchMod, terminalSearchToolTips, innerSearch.toLowerCase() );
 		}
-		catch (Throwable ignore)
+		catch (Throwable __)
 		{
-			try
+			return;
+		}
+
+		Enum SortBy = sortSrc.getSortBy();
+		Enum SortDir = sortSrc.getSortDir();
+
+		ItemSorters.Direction = (appeng.api.config.SortDir) SortDir;
+		ItemSorters.init();
+
+		boolean sameView = lastFilter != null && viewMode == lastFilter.viewMode && searchMod == lastFilter.searchMod
+				&& terminalSearchToolTips == lastFilter.searchToolTips && SortBy == lastSortBy && SortDir == lastSortDir;
+
+		if ( sameView && changed.size() <= MAX_INSERTED_CHANGES )
+		{
+			if ( filter.search.equals( lastFilter.search ) )
 			{
-				m = Pattern.compile( Pattern.quote( innerSearch.toLowerCase() ), Pattern.CASE_INSENSITIVE );
+				applyChanges( lastFilter );
+				return;
 			}
-			catch (Throwable __)
+
+			// a longer plain text search only ever matches less, so the sorted view can be narrowed down.
+			if ( filter.literal && lastFilter.literal && filter.search.contains( lastFilter.search ) )
 			{
+				applyChanges( lastFilter );
+				narrowView( filter );
+				lastFilter = filter;
 				return;
 			}
 		}
 
-		boolean notDone = false;
+		changed.clear();
+		lastFilter = filter;
+		lastSortBy = SortBy;
+		lastSortDir = SortDir;
+
+		view.clear();
+		dsp.clear();
+
+		view.ensureCapacity( list.size() );
+		dsp.ensureCapacity( list.size() );
+
 		for (IAEItemStack is : list)
+		{
+			is = filter.accept( is );
+			if ( is != null )
+				view.add( is );
+		}
+
+		Collections.sort( view, getComparator() );
+
+		for (IAEItemStack is : view)
+			dsp.add( is.getItemStack() );
+	}
+
+	/**
+	 * moves the items that changed since the view was built to their sorted position, or out of the view.
+	 */
+	private void applyChanges(Filter filter)
+	{
+		if ( changed.isEmpty() )
+			return;
+
+		int kept = 0;
+		for (int x = 0; x < view.size(); x++)
+		{
+			if ( !changed.contains( view.get( x ) ) )
+			{
+				view.set( kept, view.get( x ) );
+				dsp.set( kept, dsp.get( x ) );
+				kept++;
+			}
+		}
+
+		view.subList( kept, view.size() ).clear();
+		dsp.subList( kept, dsp.size() ).clear();
+
+		Comparator<IAEItemStack> comparator = getComparator();
+		for (IAEItemStack c : changed)
+		{
+			IAEItemStack is = list.findPrecise( c );
+			if ( is == null || (is = filter.accept( is )) == null )
+				continue;
+
+			int idx = Collections.binarySearch( view, is, comparator );
+			if ( idx < 0 )
+				idx = -idx - 1;
+
+			view.add( idx, is );
+			dsp.add( idx, is.getItemStack() );
+		}
+
+		changed.clear();
+	}
+
+	private void narrowView(Filter filter)
+	{
+		int kept = 0;
+		for (int x = 0; x < view.size(); x++)
+		{
+			if ( filter.matches( view.get( x ) ) )
+			{
+				view.set( kept, view.get( x ) );
+				dsp.set( kept, dsp.get( x ) );
+				kept++;
+			}
+		}
+
+		view.subList( kept, view.size() ).clear();
+		dsp.subList( kept, dsp.size() ).clear();
+	}
+
+	private Comparator<IAEItemStack> getComparator()
+	{
+		if ( lastSortBy == SortOrder.MOD )
+			return ItemSorters.ConfigBased_SortByMod;
+		else if ( lastSortBy == SortOrder.AMOUNT )
+			return ItemSorters.ConfigBased_SortBySize;
+		else if ( lastSortBy == SortOrder.INVTWEAKS )
+			return ItemSorters.ConfigBased_SortByInvTweaks;
+		else
+			return ItemSorters.ConfigBased_SortByName;
+	}
+
+	private SearchKey getKey(IAEItemStack is)
+	{
+		SearchKey key = keys.get( is );
+
+		if ( key == null )
+		{
+			key = new SearchKey( Platform.getItemDisplayName( is ).toLowerCase(), Platform.getModId( is ).toLowerCase() );
+			keys.put( is.copy(), key );
+		}
+
+		return key;
+	}
+
+	/**
+	 * lower case text an item is searched by, worked out once per item type while the terminal is open.
+	 */
+	static class SearchKey
+	{
+
+		final String name;
+		final String modId;
+		List<String> tooltip;
+
+		public SearchKey(String name, String modId) {
+			this.name = name;
+			this.modId = modId;
+		}
+
+	}
+
+	/**
+	 * which items the view shows, for one search string and set of view settings.
+	 */
+	class Filter
+	{
+
+		final Enum viewMode;
+		final boolean searchMod;
+		final boolean searchToolTips;
+		final String search;
+
+		// searches without regex syntax are matched as plain text.
+		final boolean literal;
+		final Pattern m;
+
+		public Filter(Enum viewMode, boolean searchMod, boolean searchToolTips, String search) {
+			this.viewMode = viewMode;
+			this.searchMod = searchMod;
+			this.searchToolTips = searchToolTips;
+			this.search = search;
+
+			literal = !REGEX_SYNTAX.matcher( search ).find();
+
+			Pattern p;
+			try
+			{
+				p = Pattern.compile( search, Pattern.CASE_INSENSITIVE );
+			}
+			catch (Throwable ignore)
+			{
+				p = Pattern.compile( Pattern.quote( search ), Pattern.CASE_INSENSITIVE );
+			}
+
+			m = p;
+		}
+
+		/**
+		 * @return the stack to show for the item, or null if it isn't part of the view.
+		 */
+		IAEItemStack accept(IAEItemStack is)
 		{
 			if ( myPartitionList != null )
 			{
 				if ( !myPartitionList.isListed( is ) )
-					continue;
+					return null;
 			}
 
 			if ( viewMode == ViewItems.CRAFTABLE && !is.isCraftable() )
-				continue;
+				return null;
 
 			if ( viewMode == ViewItems.CRAFTABLE )
 			{
@@ -192,51 +389,44 @@ public class ItemRepo
 			}
 
 			if ( viewMode == ViewItems.STORED && is.getStackSize() == 0 )
-				continue;
+				return null;
 
-			String dspName = searchMod ? Platform.getModId( is ) : Platform.getItemDisplayName( is );
-			notDone = true;
+			return matches( is ) ? is : null;
+		}
 
-			if ( m.matcher( dspName.toLowerCase() ).find() )
-			{
-				view.add( is );
-				notDone = false;
-			}
+		boolean matches(IAEItemStack is)
+		{
+			SearchKey key = getKey( is );
+			String dspName = searchMod ? key.modId : key.name;
 
-			if ( terminalSearchToolTips && notDone )
+			if ( literal ? dspName.contains( search ) : m.matcher( dspName ).find() )
+				return true;
+
+			if ( searchToolTips )
 			{
-				for (Object lp : Platform.getTooltip( is ))
-					if ( lp instanceof String && m.matcher( (String) lp ).find() )
-					{
-						view.add( is );
-						notDone = false;
-						break;
-					}
+				if ( key.tooltip == null )
+				{
+					key.tooltip = new ArrayList<String>();
+					for (Object lp : Platform.getTooltip( is ))
+						if ( lp instanceof String )
+							key.tooltip.add( ((String) lp).toLowerCase() );
+				}
+
+				for (String lp : key.tooltip)
+				{
+					if ( literal ? lp.contains( search ) : m.matcher( lp ).find() )
+						return true;
+				}
 			}
 
 			/*
 			 * if ( terminalSearchMods && notDone ) { if ( m.matcher( Platform.getMod( is.getItemStack() ) ).find() ) {
 			 * view.add( is ); notDone = false; } }
 			 */
-		}
-
-		Enum SortBy = sortSrc.getSortBy();
-		Enum SortDir = sortSrc.getSortDir();
 
-		ItemSorters.Direction = (appeng.api.config.SortDir) SortDir;
-		ItemSorters.init();
-
-		if ( SortBy == SortOrder.MOD )
-			Collections.sort( view, ItemSorters.ConfigBased_SortByMod );
-		else if ( SortBy == SortOrder.AMOUNT )
-			Collections.sort( view, ItemSorters.ConfigBased_SortBySize );
-		else if ( SortBy == SortOrder.INVTWEAKS )
-			Collections.sort( view, ItemSorters.ConfigBased_SortByInvTweaks );
-		else
-			Collections.sort( view, ItemSorters.ConfigBased_SortByName );
+			return false;
+		}
 
-		for (IAEItemStack is : view)
-			dsp.add( is.getItemStack() );
 	}
 
 	public int size()
@@ -247,6 +437,7 @@ public class ItemRepo
 	public void clear()
 	{
 		list.resetStatus();
+		lastFilter = null;
 	}
 
 	private boolean hasPower;
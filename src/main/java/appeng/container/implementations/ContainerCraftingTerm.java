@@ -22,7 +22,6 @@ import net.minecraft.entity.player.InventoryPlayer;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.inventory.InventoryCrafting;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.crafting.CraftingManager;
 import appeng.api.storage.ITerminalHost;
 import appeng.container.ContainerNull;
 import appeng.container.slot.SlotCraftingMatrix;
@@ -32,6 +31,7 @@ import appeng.parts.reporting.PartCraftingTerminal;
 import appeng.tile.inventory.AppEngInternalInventory;
 import appeng.tile.inventory.IAEAppEngInventory;
 import appeng.tile.inventory.InvOperation;
+import appeng.util.Platform;
 
 public class ContainerCraftingTerm extends ContainerMEMonitorable implements IAEAppEngInventory, IContainerCraftingPacket
 {
@@ -55,7 +55,7 @@ public class ContainerCraftingTerm extends ContainerMEMonitorable implements IAE
 		for (int x = 0; x < 9; x++)
 			ic.setInventorySlotContents( x, craftingSlots[x].getStack() );
 
-		outputSlot.putStack( CraftingManager.getInstance().findMatchingRecipe( ic, getPlayerInv().player.worldObj ) );
+		outputSlot.putStack( Platform.findMatchingRecipeOutput( ic, getPlayerInv().player.worldObj ) );
 	}
 
 	public ContainerCraftingTerm(InventoryPlayer ip, ITerminalHost monitorable) {
@@ -20,12 +20,16 @@ package appeng.container.implementations;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.entity.player.InventoryPlayer;
+import net.minecraft.inventory.ICrafting;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
@@ -43,6 +47,7 @@ import appeng.helpers.DualityInterface;
 import appeng.helpers.IInterfaceHost;
 import appeng.helpers.InventoryAction;
 import appeng.items.misc.ItemEncodedPattern;
+import appeng.me.cache.InterfaceTerminalCache;
 import appeng.parts.misc.PartInterface;
 import appeng.parts.reporting.PartMonitor;
 import appeng.tile.inventory.AppEngInternalInventory;
@@ -85,6 +90,16 @@ public class ContainerInterfaceTerminal extends AEBaseContainer
 	final Map<Long, InvTracker> byId = new HashMap<Long, InvTracker>();
 	IGrid g;
 
+	/**
+	 * names depend on the blocks next to the interfaces, which don't post any events, so a few are checked each tick.
+	 */
+	static final int NAME_CHECKS_PER_TICK = 8;
+
+	final List<IInterfaceHost> nameChecks = new ArrayList<IInterfaceHost>();
+	int nextNameCheck = 0;
+
+	InterfaceTerminalCache.Changes changes;
+
 	public ContainerInterfaceTerminal(InventoryPlayer ip, PartMonitor anchor) {
 		super( ip, anchor );
 
@@ -225,70 +240,25 @@ public class ContainerInterfaceTerminal extends AEBaseContainer
 		if ( g == null )
 			return;
 
-		int total = 0;
-		boolean missing = false;
-
-		IActionHost host = getActionHost();
-		if ( host != null )
+		if ( changes == null )
 		{
-			IGridNode agn = host.getActionableNode();
-			if ( agn != null && agn.isActive() )
-			{
-				for (IGridNode gn : g.getMachines( TileInterface.class ))
-				{
-					if ( gn.isActive() )
-					{
-						IInterfaceHost ih = (IInterfaceHost) gn.getMachine();
-						if ( ih.getInterfaceDuality().getConfigManager().getSetting( Settings.INTERFACE_TERMINAL ) == YesNo.NO )
-							continue;
-
-						InvTracker t = diList.get( ih );
-
-						if ( t == null )
-							missing = true;
-						else
-						{
-							DualityInterface dual = ih.getInterfaceDuality();
-							if ( !t.unlocalizedName.equals( dual.getTermName() ) )
-								missing = true;
-						}
-
-						total++;
-					}
-				}
-
-				for (IGridNode gn : g.getMachines( PartInterface.class ))
-				{
-					if ( gn.isActive() )
-					{
-						IInterfaceHost ih = (IInterfaceHost) gn.getMachine();
-						if ( ih.getInterfaceDuality().getConfigManager().getSetting( Settings.INTERFACE_TERMINAL ) == YesNo.NO )
-							continue;
-
-						InvTracker t = diList.get( ih );
-
-						if ( t == null )
-							missing = true;
-						else
-						{
-							DualityInterface dual = ih.getInterfaceDuality();
-							if ( !t.unlocalizedName.equals( dual.getTermName() ) )
-								missing = true;
-						}
-
-						total++;
-					}
-				}
-			}
+			InterfaceTerminalCache itc = g.getCache( InterfaceTerminalCache.class );
+			changes = itc.subscribe();
 		}
 
-		if ( total != diList.size() || missing )
+		if ( changes.rebuild || namesChanged() )
+		{
+			changes.rebuild = false;
 			regenList( data );
+		}
 		else
 		{
-			for (Entry<IInterfaceHost, InvTracker> en : diList.entrySet())
+			for (IInterfaceHost ih : changes.patterns)
 			{
-				InvTracker inv = en.getValue();
+				InvTracker inv = diList.get( ih );
+				if ( inv == null )
+					continue;
+
 				for (int x = 0; x < inv.server.getSizeInventory(); x++)
 				{
 					if ( isDifferent( inv.server.getStackInSlot( x ), inv.client.getStackInSlot( x ) ) )
@@ -297,6 +267,8 @@ public class ContainerInterfaceTerminal extends AEBaseContainer
 			}
 		}
 
+		changes.patterns.clear();
+
 		if ( !data.hasNoTags() )
 		{
 			try
@@ -312,6 +284,46 @@ public class ContainerInterfaceTerminal extends AEBaseContainer
 		}
 	}
 
+	@Override
+	public void onContainerClosed(EntityPlayer player)
+	{
+		super.onContainerClosed( player );
+		unsubscribe();
+	}
+
+	@Override
+	public void removeCraftingFromCrafters(ICrafting c)
+	{
+		super.removeCraftingFromCrafters( c );
+
+		if ( this.crafters.isEmpty() )
+			unsubscribe();
+	}
+
+	private void unsubscribe()
+	{
+		if ( changes != null )
+		{
+			InterfaceTerminalCache itc = g.getCache( InterfaceTerminalCache.class );
+			itc.unsubscribe( changes );
+			changes = null;
+		}
+	}
+
+	private boolean namesChanged()
+	{
+		for (int x = 0; x < NAME_CHECKS_PER_TICK && x < nameChecks.size(); x++)
+		{
+			nextNameCheck = (nextNameCheck + 1) % nameChecks.size();
+
+			IInterfaceHost ih = nameChecks.get( nextNameCheck );
+			if ( !diList.get( ih ).unlocalizedName.equals( ih.getInterfaceDuality().getTermName() ) )
+				return true;
+		}
+
+		return false;
+	}
+
 	private boolean isDifferent(ItemStack a, ItemStack b)
 	{
 		if ( a == null && b == null )
@@ -352,6 +364,9 @@ public class ContainerInterfaceTerminal extends AEBaseContainer
 			}
 		}
 
+		nameChecks.clear();
+		nameChecks.addAll( diList.keySet() );
+
 		data.setBoolean( "clear", true );
 
 		for (Entry<IInterfaceHost, InvTracker> en : diList.entrySet())
@@ -19,7 +19,6 @@
 package appeng.container.implementations;
 
 import java.io.IOException;
-import java.nio.BufferOverflowException;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -28,7 +27,6 @@ import net.minecraft.inventory.ICrafting;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraftforge.common.util.ForgeDirection;
-import appeng.api.AEApi;
 import appeng.api.config.Actionable;
 import appeng.api.config.PowerMultiplier;
 import appeng.api.config.SecurityPermissions;
@@ -43,14 +41,10 @@ import appeng.api.networking.IGrid;
 import appeng.api.networking.IGridHost;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.energy.IEnergyGrid;
-import appeng.api.networking.security.BaseActionSource;
-import appeng.api.networking.storage.IBaseMonitor;
 import appeng.api.parts.IPart;
 import appeng.api.storage.IMEMonitor;
-import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.ITerminalHost;
 import appeng.api.storage.data.IAEItemStack;
-import appeng.api.storage.data.IItemList;
 import appeng.api.util.IConfigManager;
 import appeng.api.util.IConfigurableObject;
 import appeng.container.AEBaseContainer;
@@ -65,11 +59,12 @@ import appeng.util.ConfigManager;
 import appeng.util.IConfigManagerHost;
 import appeng.util.Platform;
 
-public class ContainerMEMonitorable extends AEBaseContainer implements IConfigManagerHost, IConfigurableObject, IMEMonitorHandlerReceiver<IAEItemStack>
+public class ContainerMEMonitorable extends AEBaseContainer implements IConfigManagerHost, IConfigurableObject
 {
 
 	final IMEMonitor<IAEItemStack> monitor;
-	final IItemList<IAEItemStack> items = AEApi.instance().storage().createItemList();
+	private TerminalJournal journal;
+	private long journalVersion = -1;
 
 	IConfigManager serverCM;
 	final IConfigManager clientCM;
@@ -108,7 +103,7 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 			monitor = monitorable.getItemInventory();
 			if ( monitor != null )
 			{
-				monitor.addListener( this, null );
+				journal = TerminalJournal.subscribe( monitor );
 
 				cellInv = monitor;
 
@@ -184,36 +179,22 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 				}
 			}
 
-			if ( !items.isEmpty() )
+			if ( journal != null )
 			{
 				try
 				{
-					IItemList<IAEItemStack> monitorCache = monitor.getStorageList();
+					journal.publish();
 
-					PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate();
-
-					for (IAEItemStack is : items)
-					{
-						IAEItemStack send = monitorCache.findPrecise( is );
-						if ( send == null )
-						{
-							is.setStackSize( 0 );
-							piu.appendItem( is );
-						}
-						else
-							piu.appendItem( send );
-					}
-
-					if ( !piu.isEmpty() )
+					for (PacketMEInventoryUpdate piu : journal.getUpdates( journalVersion ))
 					{
-						items.resetStatus();
-
 						for (Object c : this.crafters)
 						{
 							if ( c instanceof EntityPlayer )
 								NetworkHandler.instance.sendTo( piu, (EntityPlayerMP) c );
 						}
 					}
+
+					journalVersion = journal.getVersion();
 				}
 				catch (IOException e)
 				{
@@ -264,29 +245,16 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 
 	public void queueInventory(ICrafting c)
 	{
-		if ( Platform.isServer() && c instanceof EntityPlayer && monitor != null )
+		if ( Platform.isServer() && c instanceof EntityPlayer && journal != null )
 		{
 			try
 			{
-				PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate();
-				IItemList<IAEItemStack> monitorCache = monitor.getStorageList();
-
-				for (IAEItemStack send : monitorCache)
-				{
-					try
-					{
-						piu.appendItem( send );
-					}
-					catch (BufferOverflowException boe)
-					{
-						NetworkHandler.instance.sendTo( piu, (EntityPlayerMP) c );
-
-						piu = new PacketMEInventoryUpdate();
-						piu.appendItem( send );
-					}
-				}
+				// the snapshot is shared with everyone opening a terminal on this network at the same version.
+				for (PacketMEInventoryUpdate piu : journal.getSnapshot())
+					NetworkHandler.instance.sendTo( piu, (EntityPlayerMP) c );
 
-				NetworkHandler.instance.sendTo( piu, (EntityPlayerMP) c );
+				if ( journalVersion < 0 )
+					journalVersion = journal.getVersion();
 			}
 			catch (IOException e)
 			{
@@ -296,19 +264,6 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 		}
 	}
 
-	@Override
-	public void onListUpdate()
-	{
-		for (Object c : this.crafters)
-		{
-			if ( c instanceof ICrafting )
-			{
-				ICrafting cr = (ICrafting) c;
-				queueInventory( cr );
-			}
-		}
-	}
-
 	@Override
 	public void onUpdate(String field, Object oldValue, Object newValue)
 	{
@@ -326,8 +281,7 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 	public void onContainerClosed(EntityPlayer player)
 	{
 		super.onContainerClosed( player );
-		if ( monitor != null )
-			monitor.removeListener( this );
+		unsubscribe();
 	}
 
 	@Override
@@ -335,21 +289,17 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 	{
 		super.removeCraftingFromCrafters( c );
 
-		if ( this.crafters.isEmpty() && monitor != null )
-			monitor.removeListener( this );
+		if ( this.crafters.isEmpty() )
+			unsubscribe();
 	}
 
-	@Override
-	public void postChange(IBaseMonitor<IAEItemStack> monitor, Iterable<IAEItemStack> change, BaseActionSource source)
+	private void unsubscribe()
 	{
-		for (IAEItemStack is : change)
-			items.add( is );
-	}
-
-	@Override
-	public boolean isValid(Object verificationToken)
-	{
-		return true;
+		if ( journal != null )
+		{
+			journal.unsubscribe();
+			journal = null;
+		}
 	}
 
 	@Override
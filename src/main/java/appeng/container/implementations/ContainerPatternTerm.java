@@ -30,7 +30,6 @@ import net.minecraft.inventory.InventoryCrafting;
 import net.minecraft.inventory.Slot;
 import net.minecraft.inventory.SlotCrafting;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.crafting.CraftingManager;
 import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
@@ -149,7 +148,7 @@ public class ContainerPatternTerm extends ContainerMEMonitorable implements IAEA
 		for (int x = 0; x < ic.getSizeInventory(); x++)
 			ic.setInventorySlotContents( x, crafting.getStackInSlot( x ) );
 
-		ItemStack is = CraftingManager.getInstance().findMatchingRecipe( ic, this.getPlayerInv().player.worldObj );
+		ItemStack is = Platform.findMatchingRecipeOutput( ic, this.getPlayerInv().player.worldObj );
 		cOut.setInventorySlotContents( 0, is );
 		return is;
 	}
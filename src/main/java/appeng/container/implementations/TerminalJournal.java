@@ -0,0 +1,236 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.container.implementations;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import appeng.api.AEApi;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.networking.storage.IBaseMonitor;
+import appeng.api.storage.IMEMonitor;
+import appeng.api.storage.IMEMonitorHandlerReceiver;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.core.sync.packets.PacketMEInventoryUpdate;
+
+/**
+ * Changes of one monitor, shared by every terminal viewing it.
+ *
+ * Collected changes are encoded once into packets under a new version, each terminal then sends the packets published
+ * after the version its client is at. Terminals that are too far behind, just opened, or saw the list reset get a
+ * snapshot of the whole list instead, which is also encoded only once per version. A snapshot tells the client to drop
+ * its list first, so items that left the list while deltas were skipped don't linger.
+ */
+class TerminalJournal implements IMEMonitorHandlerReceiver<IAEItemStack>
+{
+
+	// versions of deltas kept around for terminals that didn't update every tick.
+	private static final int HISTORY = 20;
+
+	private static final Map<IMEMonitor<IAEItemStack>, TerminalJournal> journals = new HashMap<IMEMonitor<IAEItemStack>, TerminalJournal>();
+
+	static class Version
+	{
+
+		final long version;
+		final List<PacketMEInventoryUpdate> packets;
+
+		public Version(long version, List<PacketMEInventoryUpdate> packets) {
+			this.version = version;
+			this.packets = packets;
+		}
+
+	}
+
+	private final IMEMonitor<IAEItemStack> monitor;
+	private final IItemList<IAEItemStack> pending = AEApi.instance().storage().createItemList();
+	private final LinkedList<Version> history = new LinkedList<Version>();
+
+	private int subscribers = 0;
+	private long version = 0;
+
+	// deltas from before this version no longer apply.
+	private long resetVersion = 0;
+
+	private List<PacketMEInventoryUpdate> snapshot;
+	private long snapshotVersion = -1;
+
+	private TerminalJournal(IMEMonitor<IAEItemStack> monitor) {
+		this.monitor = monitor;
+	}
+
+	static TerminalJournal subscribe(IMEMonitor<IAEItemStack> monitor)
+	{
+		TerminalJournal journal = journals.get( monitor );
+
+		if ( journal == null )
+		{
+			journal = new TerminalJournal( monitor );
+			journals.put( monitor, journal );
+			monitor.addListener( journal, null );
+		}
+
+		journal.subscribers++;
+		return journal;
+	}
+
+	void unsubscribe()
+	{
+		if ( --subscribers <= 0 )
+		{
+			monitor.removeListener( this );
+			journals.remove( monitor );
+		}
+	}
+
+	long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * publishes the changes collected since the last call as a new version, only the first terminal to update each
+	 * tick finds any.
+	 */
+	void publish() throws IOException
+	{
+		if ( pending.isEmpty() )
+			return;
+
+		IItemList<IAEItemStack> monitorCache = monitor.getStorageList();
+		List<PacketMEInventoryUpdate> packets = new ArrayList<PacketMEInventoryUpdate>();
+		PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate();
+
+		for (IAEItemStack is : pending)
+		{
+			IAEItemStack send = monitorCache.findPrecise( is );
+			if ( send == null )
+			{
+				is.setStackSize( 0 );
+				send = is;
+			}
+
+			try
+			{
+				piu.appendItem( send );
+			}
+			catch (BufferOverflowException boe)
+			{
+				packets.add( piu );
+
+				piu = new PacketMEInventoryUpdate();
+				piu.appendItem( send );
+			}
+		}
+
+		if ( !piu.isEmpty() )
+			packets.add( piu );
+
+		pending.resetStatus();
+
+		history.add( new Version( ++version, packets ) );
+		while (history.size() > HISTORY)
+			history.removeFirst();
+	}
+
+	/**
+	 * @return the packets that bring a client at the given version up to date with {@link #getVersion()}.
+	 */
+	List<PacketMEInventoryUpdate> getUpdates(long since) throws IOException
+	{
+		if ( since == version )
+			return Collections.emptyList();
+
+		if ( since < resetVersion || history.isEmpty() || history.getFirst().version > since + 1 )
+			return getSnapshot();
+
+		List<PacketMEInventoryUpdate> packets = new ArrayList<PacketMEInventoryUpdate>();
+		for (Version v : history)
+		{
+			if ( v.version > since )
+				packets.addAll( v.packets );
+		}
+
+		return packets;
+	}
+
+	/**
+	 * @return the whole list, replacing the client's, changes still pending are sent again with the next version which
+	 *         does no harm.
+	 */
+	List<PacketMEInventoryUpdate> getSnapshot() throws IOException
+	{
+		if ( snapshot == null || snapshotVersion != version )
+		{
+			List<PacketMEInventoryUpdate> packets = new ArrayList<PacketMEInventoryUpdate>();
+			PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate( (byte) 0, true );
+
+			for (IAEItemStack send : monitor.getStorageList())
+			{
+				try
+				{
+					piu.appendItem( send );
+				}
+				catch (BufferOverflowException boe)
+				{
+					packets.add( piu );
+
+					piu = new PacketMEInventoryUpdate();
+					piu.appendItem( send );
+				}
+			}
+
+			packets.add( piu );
+
+			snapshot = packets;
+			snapshotVersion = version;
+		}
+
+		return snapshot;
+	}
+
+	@Override
+	public boolean isValid(Object verificationToken)
+	{
+		return subscribers > 0;
+	}
+
+	@Override
+	public void postChange(IBaseMonitor<IAEItemStack> monitor, Iterable<IAEItemStack> change, BaseActionSource actionSource)
+	{
+		for (IAEItemStack is : change)
+			pending.add( is );
+	}
+
+	@Override
+	public void onListUpdate()
+	{
+		pending.resetStatus();
+		history.clear();
+		resetVersion = ++version;
+	}
+
+}
@@ -23,6 +23,7 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import net.minecraftforge.common.config.Configuration;
 import net.minecraftforge.common.config.Property;
@@ -155,6 +156,10 @@ public class AEConfig extends Configuration implements IConfigurableObject, ICon
 	public int[] meteoriteDimensionWhitelist = new int[] { 0 };
 
 	public int craftingCalculationTimePerTick = 5;
+	public int craftingCalculationThreads = 2;
+	public boolean craftingCalculationConcurrent = false;
+
+	public int packetCompressionLevel = Deflater.BEST_SPEED;
 
 	@SubscribeEvent
 	public void onConfigChanged(ConfigChangedEvent.OnConfigChangedEvent eventArgs)
@@ -288,6 +293,9 @@ public class AEConfig extends Configuration implements IConfigurableObject, ICon
 		colorApplicatorBattery = get( "battery", "colorApplicator", colorApplicatorBattery ).getInt( colorApplicatorBattery );
 		matterCannonBattery = get( "battery", "matterCannon", matterCannonBattery ).getInt( matterCannonBattery );
 
+		packetCompressionLevel = get( "network", "packetCompressionLevel", packetCompressionLevel, "Deflate level of ME inventory packets, 1 is fastest, 9 smallest." ).getInt( packetCompressionLevel );
+		packetCompressionLevel = Math.max( Deflater.BEST_SPEED, Math.min( Deflater.BEST_COMPRESSION, packetCompressionLevel ) );
+
 		clientSync();
 
 		for (AEFeature feature : AEFeature.values())
@@ -335,6 +343,9 @@ public class AEConfig extends Configuration implements IConfigurableObject, ICon
 		{
 			craftingCalculationTimePerTick = get( "craftingCPU", "craftingCalculationTimePerTick", craftingCalculationTimePerTick ).getInt(
 					craftingCalculationTimePerTick );
+			craftingCalculationThreads = get( "craftingCPU", "craftingCalculationThreads", craftingCalculationThreads ).getInt( craftingCalculationThreads );
+			craftingCalculationConcurrent = get( "craftingCPU", "craftingCalculationConcurrent", craftingCalculationConcurrent ).getBoolean(
+					craftingCalculationConcurrent );
 		}
 
 		if ( isFeatureEnabled( AEFeature.VersionChecker ) )
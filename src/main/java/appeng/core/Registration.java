@@ -172,6 +172,7 @@ import appeng.items.tools.quartz.ToolQuartzWrench;
 import appeng.me.cache.CraftingGridCache;
 import appeng.me.cache.EnergyGridCache;
 import appeng.me.cache.GridStorageCache;
+import appeng.me.cache.InterfaceTerminalCache;
 import appeng.me.cache.P2PCache;
 import appeng.me.cache.PathGridCache;
 import appeng.me.cache.SecurityCache;
@@ -578,6 +579,7 @@ public class Registration
 		gcr.registerGridCache( ISpatialCache.class, SpatialPylonCache.class );
 		gcr.registerGridCache( ISecurityGrid.class, SecurityCache.class );
 		gcr.registerGridCache( ICraftingGrid.class, CraftingGridCache.class );
+		gcr.registerGridCache( InterfaceTerminalCache.class, InterfaceTerminalCache.class );
 
 		AEApi.instance().registries().externalStorage().addExternalStorageInterface( new AEExternalHandler() );
 
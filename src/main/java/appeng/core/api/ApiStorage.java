@@ -38,6 +38,7 @@ import appeng.crafting.CraftingLink;
 import appeng.util.Platform;
 import appeng.util.item.AEFluidStack;
 import appeng.util.item.AEItemStack;
+import appeng.util.item.HashItemList;
 import appeng.util.item.ItemList;
 
 public class ApiStorage implements IStorageHelper
@@ -58,7 +59,7 @@ public class ApiStorage implements IStorageHelper
 	@Override
 	public IItemList<IAEItemStack> createItemList()
 	{
-		return new ItemList<IAEItemStack>( IAEItemStack.class );
+		return new HashItemList();
 	}
 
 	@Override
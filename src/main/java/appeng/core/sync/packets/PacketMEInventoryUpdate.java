@@ -19,10 +19,10 @@
 package appeng.core.sync.packets;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.BufferOverflowException;
 import java.util.LinkedList;
@@ -38,6 +38,7 @@ import appeng.client.gui.implementations.GuiCraftConfirm;
 import appeng.client.gui.implementations.GuiCraftingCPU;
 import appeng.client.gui.implementations.GuiMEMonitorable;
 import appeng.client.gui.implementations.GuiNetworkStatus;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.core.sync.AppEngPacket;
 import appeng.core.sync.network.INetworkInfo;
@@ -51,9 +52,15 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 
 	// output...
 	final private byte ref;
+
+	// the client drops its list before applying the items, only set on the first packet of a whole list.
+	final private boolean clearList;
 	final private ByteBuf data;
 	final private GZIPOutputStream compressFrame;
 
+	// each item is written here first to check the size limit, then copied into the compressed frame.
+	final private ByteBuf itemBuffer;
+
 	int writtenBytes = 0;
 
 	boolean empty = true;
@@ -65,32 +72,20 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 	public PacketMEInventoryUpdate(final ByteBuf stream) throws IOException {
 		data = null;
 		compressFrame = null;
+		itemBuffer = null;
 		list = new LinkedList<IAEItemStack>();
 		ref = stream.readByte();
+		clearList = stream.readBoolean();
 
 		// int originalBytes = stream.readableBytes();
 
-		GZIPInputStream gzReader = new GZIPInputStream( new InputStream() {
-
-			@Override
-			public int read() throws IOException
-			{
-				if ( stream.readableBytes() <= 0 )
-					return -1;
-
-				return stream.readByte() & 0xff;
-			}
-
-		} );
+		GZIPInputStream gzReader = new GZIPInputStream( new ByteBufInputStream( stream ), 8192 );
 
-		ByteBuf uncompressed = Unpooled.buffer( stream.readableBytes() );
-		byte tmp[] = new byte[1024];
-		while (gzReader.available() != 0)
-		{
-			int bytes = gzReader.read( tmp );
-			if ( bytes > 0 )
-				uncompressed.writeBytes( tmp, 0, bytes );
-		}
+		ByteBuf uncompressed = Unpooled.buffer( stream.readableBytes() * 4 );
+		byte tmp[] = new byte[8192];
+		int bytes;
+		while ((bytes = gzReader.read( tmp )) >= 0)
+			uncompressed.writeBytes( tmp, 0, bytes );
 		gzReader.close();
 
 		// int uncompressedBytes = uncompressed.readableBytes();
@@ -115,7 +110,12 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 			((GuiCraftingCPU) gs).postUpdate( list, ref );
 
 		if ( gs instanceof GuiMEMonitorable )
+		{
+			if ( clearList )
+				((GuiMEMonitorable) gs).clearItems();
+
 			((GuiMEMonitorable) gs).postUpdate( list );
+		}
 
 		if ( gs instanceof GuiNetworkStatus )
 			((GuiNetworkStatus) gs).postUpdate( list );
@@ -127,9 +127,7 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 	{
 		try
 		{
-			compressFrame.close();
-
-			configureWrite( data );
+			configureWrite( finish() );
 			return super.getProxy();
 		}
 		catch (IOException e)
@@ -139,6 +137,15 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 		return null;
 	}
 
+	/**
+	 * ends the compressed frame, the packet can't be appended to afterwards.
+	 */
+	ByteBuf finish() throws IOException
+	{
+		compressFrame.close();
+		return data;
+	}
+
 	// api
 	public PacketMEInventoryUpdate() throws IOException {
 		this( (byte) 0 );
@@ -146,10 +153,15 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 
 	// api
 	public PacketMEInventoryUpdate(byte ref) throws IOException {
+		this( ref, false );
+	}
+
+	public PacketMEInventoryUpdate(byte ref, boolean clearList) throws IOException {
 
 		data = Unpooled.buffer( 2048 );
 		data.writeInt( getPacketID() );
 		data.writeByte( this.ref = ref );
+		data.writeBoolean( this.clearList = clearList );
 
 		compressFrame = new GZIPOutputStream( new OutputStream() {
 
@@ -159,23 +171,35 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 				data.writeByte( value );
 			}
 
-		} );
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException
+			{
+				data.writeBytes( b, off, len );
+			}
+
+		}, 8192 ) {
+
+			{
+				def.setLevel( AEConfig.instance.packetCompressionLevel );
+			}
+
+		};
 
+		itemBuffer = Unpooled.buffer( 2048 );
 		list = null;
 	}
 
 	public void appendItem(IAEItemStack is) throws IOException, BufferOverflowException
 	{
-		ByteBuf tmp = Unpooled.buffer( 2048 );
-		is.writeToPacket( tmp );
+		itemBuffer.clear();
+		is.writeToPacket( itemBuffer );
 
-		compressFrame.flush();
-		if ( writtenBytes + tmp.readableBytes() > 2 * 1024 * 1024 ) // 2mb!
+		if ( writtenBytes + itemBuffer.readableBytes() > 2 * 1024 * 1024 ) // 2mb!
 			throw new BufferOverflowException();
 		else
 		{
-			writtenBytes += tmp.readableBytes();
-			compressFrame.write( tmp.array(), 0, tmp.readableBytes() );
+			writtenBytes += itemBuffer.readableBytes();
+			compressFrame.write( itemBuffer.array(), itemBuffer.arrayOffset() + itemBuffer.readerIndex(), itemBuffer.readableBytes() );
 			empty = false;
 		}
 	}
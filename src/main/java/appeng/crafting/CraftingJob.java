@@ -20,6 +20,7 @@ package appeng.crafting;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import net.minecraft.nbt.NBTTagCompound;
@@ -35,6 +36,7 @@ import appeng.api.networking.security.BaseActionSource;
 import appeng.api.networking.storage.IStorageGrid;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.hooks.TickHandler;
 
@@ -60,6 +62,13 @@ public class CraftingJob implements Runnable, ICraftingJob
 	long bytes = 0;
 	final World world;
 
+	/**
+	 * concurrent jobs run freely on the crafting pool against the snapshot in {@link #original}, the others are
+	 * stepped by the server thread a few milliseconds per tick. Only jobs that never call into recipes or items are
+	 * concurrent, and only when enabled in the config.
+	 */
+	private final boolean concurrent;
+
 	@Override
 	public IAEItemStack getOutput()
 	{
@@ -73,6 +82,7 @@ public class CraftingJob implements Runnable, ICraftingJob
 		prophecies = new HashSet<IAEItemStack>();
 		original = null;
 		availableCheck = null;
+		concurrent = false;
 	}
 
 	public void refund(IAEItemStack o)
@@ -96,10 +106,14 @@ public class CraftingJob implements Runnable, ICraftingJob
 		this.callback = callback;
 		ICraftingGrid cc = grid.getCache( ICraftingGrid.class );
 		IStorageGrid sg = grid.getCache( IStorageGrid.class );
+
+		// the only read of the live network, everything after this works on copies of the snapshot and the plan is
+		// checked against the network again when it is submitted to a cpu.
 		original = new MECraftingInventory( sg.getItemInventory(), actionSrc, false, false, false );
 
 		tree = getCraftingTree( cc, what );
 		availableCheck = null;
+		concurrent = AEConfig.instance.craftingCalculationConcurrent && !tree.needsServerThread();
 	}
 
 	private World wrapWorld(World w)
@@ -158,7 +172,9 @@ public class CraftingJob implements Runnable, ICraftingJob
 		{
 			try
 			{
-				TickHandler.instance.registerCraftingSimulation( world, this );
+				if ( !concurrent )
+					TickHandler.instance.registerCraftingSimulation( world, this );
+
 				handlePausing();
 
 				Stopwatch timer = Stopwatch.createStarted();
@@ -242,10 +258,34 @@ public class CraftingJob implements Runnable, ICraftingJob
 
 	}
 
+	class CalculationComplete implements Callable
+	{
+
+		final ICraftingCallback target;
+
+		public CalculationComplete(ICraftingCallback target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object call() throws Exception
+		{
+			target.calculationComplete( CraftingJob.this );
+			return null;
+		}
+
+	}
+
 	public void finish()
 	{
 		if ( callback != null )
-			callback.calculationComplete( this );
+		{
+			// requesters expect to hear back on the server thread, stepped jobs are already in lockstep with it.
+			if ( concurrent )
+				TickHandler.instance.addCallable( null, new CalculationComplete( callback ) );
+			else
+				callback.calculationComplete( this );
+		}
 
 		availableCheck = null;
 
@@ -327,25 +367,28 @@ public class CraftingJob implements Runnable, ICraftingJob
 		{
 			incTime = 0;
 
-			synchronized (monitor)
+			if ( !concurrent )
 			{
-				if ( watch.elapsed( TimeUnit.MICROSECONDS ) > time )
-				{
-					running = false;
-					watch.stop();
-					monitor.notify();
-				}
-
-				if ( !running )
+				synchronized (monitor)
 				{
-					log( "crafting job will now sleep" );
-
-					while (!running)
+					if ( watch.elapsed( TimeUnit.MICROSECONDS ) > time )
 					{
-						monitor.wait();
+						running = false;
+						watch.stop();
+						monitor.notify();
 					}
 
-					log( "crafting job now active" );
+					if ( !running )
+					{
+						log( "crafting job will now sleep" );
+
+						while (!running)
+						{
+							monitor.wait();
+						}
+
+						log( "crafting job now active" );
+					}
 				}
 			}
 
@@ -278,6 +278,23 @@ public class CraftingTreeNode
 			pro.dive( job );
 	}
 
+	/**
+	 * @return true if requesting this branch calls into recipes or fires events into the world and must stay on the
+	 *         server thread.
+	 */
+	boolean needsServerThread()
+	{
+		// substitutes are checked against the recipe.
+		if ( slot >= 0 && parent != null && parent.details.isCraftable() )
+			return true;
+
+		for (CraftingTreeProcess pro : nodes)
+			if ( pro.needsServerThread() )
+				return true;
+
+		return false;
+	}
+
 	public void setSimulate()
 	{
 		sim = true;
@@ -38,6 +38,7 @@ import appeng.api.networking.security.BaseActionSource;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
 import appeng.container.ContainerNull;
+import appeng.me.cache.CraftingGridCache;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
 import appeng.util.Platform;
 
@@ -67,45 +68,21 @@ public class CraftingTreeProcess
 		this.depth = depth;
 		World world = job.getWorld();
 
+		PatternExpansion expansion;
+		if ( cc instanceof CraftingGridCache )
+			expansion = ((CraftingGridCache) cc).getExpansion( details, world );
+		else
+			expansion = new PatternExpansion( details, world );
+
+		fullSimulation = expansion.fullSimulation;
+		limitQty = expansion.limitQty;
+		containerItems = expansion.containerItems;
+
 		if ( details.isCraftable() )
 		{
 			IAEItemStack list[] = details.getInputs();
 
-			InventoryCrafting ic = new InventoryCrafting( new ContainerNull(), 3, 3 );
-			IAEItemStack[] is = details.getInputs();
-			for (int x = 0; x < ic.getSizeInventory(); x++)
-				ic.setInventorySlotContents( x, is[x] == null ? null : is[x].getItemStack() );
-
-			FMLCommonHandler.instance().firePlayerCraftingEvent( Platform.getPlayer( (WorldServer) world ), details.getOutput( ic, world ), ic );
-
-			for (int x = 0; x < ic.getSizeInventory(); x++)
-			{
-				ItemStack g = ic.getStackInSlot( x );
-				if ( g != null && g.stackSize > 1 )
-					fullSimulation = true;
-			}
-
-			for ( IAEItemStack part : details.getCondensedInputs() )
-			{
-				ItemStack g = part.getItemStack();
-
-				boolean isAnInput = false;
-				for ( IAEItemStack a : details.getCondensedOutputs() )
-				{
-					if ( g != null && a != null && a.equals( g ) )
-						isAnInput = true;
-				}
-
-				if ( isAnInput )
-					limitQty = true;
-
-				if ( g.getItem().hasContainerItem( g ) )
-					limitQty = containerItems = true;
-			}
-
-			boolean complicated = false;
-
-			if ( containerItems || complicated )
+			if ( containerItems )
 			{
 				for (int x = 0; x < list.length; x++)
 				{
@@ -134,21 +111,6 @@ public class CraftingTreeProcess
 		}
 		else
 		{
-			for ( IAEItemStack part : details.getCondensedInputs() )
-			{
-				ItemStack g = part.getItemStack();
-
-				boolean isAnInput = false;
-				for (IAEItemStack a : details.getCondensedOutputs())
-				{
-					if ( g != null && a != null && a.equals( g ) )
-						isAnInput = true;
-				}
-
-				if ( isAnInput )
-					limitQty = true;
-			}
-
 			for (IAEItemStack part : details.getCondensedInputs())
 			{
 				nodes.put( new CraftingTreeNode( cc, job, part.copy(), this, -1, depth + 1 ), part.getStackSize() );
@@ -268,6 +230,19 @@ public class CraftingTreeProcess
 		job.addBytes( 8 + crafts + bytes );
 	}
 
+	boolean needsServerThread()
+	{
+		// container items come from the items themselves, which may look at the world.
+		if ( fullSimulation || containerItems )
+			return true;
+
+		for (CraftingTreeNode pro : nodes.keySet())
+			if ( pro.needsServerThread() )
+				return true;
+
+		return false;
+	}
+
 	public void setSimulate()
 	{
 		crafts = 0;
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import cpw.mods.fml.common.FMLCommonHandler;
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.container.ContainerNull;
+import appeng.util.Platform;
+
+/**
+ * How a pattern expands into a crafting tree, this only depends on the pattern so it is worked out once and shared by
+ * every {@link CraftingTreeProcess} using it until the patterns on the network change.
+ */
+public class PatternExpansion
+{
+
+	/**
+	 * the crafting event changed the grid, every craft has to be simulated one at a time.
+	 */
+	final boolean fullSimulation;
+
+	/**
+	 * the pattern consumes one of its own outputs or leaves container items behind.
+	 */
+	final boolean limitQty;
+
+	final boolean containerItems;
+
+	public PatternExpansion(ICraftingPatternDetails details, World world)
+	{
+		boolean fullSimulation = false;
+		boolean limitQty = false;
+		boolean containerItems = false;
+
+		if ( details.isCraftable() )
+		{
+			InventoryCrafting ic = new InventoryCrafting( new ContainerNull(), 3, 3 );
+			IAEItemStack[] is = details.getInputs();
+			for (int x = 0; x < ic.getSizeInventory(); x++)
+				ic.setInventorySlotContents( x, is[x] == null ? null : is[x].getItemStack() );
+
+			FMLCommonHandler.instance().firePlayerCraftingEvent( Platform.getPlayer( (WorldServer) world ), details.getOutput( ic, world ), ic );
+
+			for (int x = 0; x < ic.getSizeInventory(); x++)
+			{
+				ItemStack g = ic.getStackInSlot( x );
+				if ( g != null && g.stackSize > 1 )
+					fullSimulation = true;
+			}
+		}
+
+		for (IAEItemStack part : details.getCondensedInputs())
+		{
+			ItemStack g = part.getItemStack();
+
+			for (IAEItemStack a : details.getCondensedOutputs())
+			{
+				if ( g != null && a != null && a.equals( g ) )
+					limitQty = true;
+			}
+
+			if ( details.isCraftable() && g.getItem().hasContainerItem( g ) )
+				limitQty = containerItems = true;
+		}
+
+		this.fullSimulation = fullSimulation;
+		this.limitQty = limitQty;
+		this.containerItems = containerItems;
+	}
+
+}
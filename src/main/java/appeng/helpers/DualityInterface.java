@@ -72,6 +72,7 @@ import appeng.api.util.DimensionalCoord;
 import appeng.api.util.IConfigManager;
 import appeng.core.settings.TickRates;
 import appeng.me.GridAccessException;
+import appeng.me.cache.InterfaceTerminalCache;
 import appeng.me.helpers.AENetworkProxy;
 import appeng.me.storage.MEMonitorIInventory;
 import appeng.me.storage.MEMonitorPassThrough;
@@ -572,6 +573,19 @@ public class DualityInterface implements IGridTickable, IStorageMonitorable, IIn
 	@Override
 	public void onChangeInventory(IInventory inv, int slot, InvOperation mc, ItemStack removed, ItemStack added)
 	{
+		if ( inv == patterns )
+		{
+			try
+			{
+				InterfaceTerminalCache itc = gridProxy.getGrid().getCache( InterfaceTerminalCache.class );
+				itc.patternsChanged( iHost );
+			}
+			catch (GridAccessException e)
+			{
+				// :P
+			}
+		}
+
 		if ( isWorking )
 			return;
 
@@ -718,6 +732,19 @@ public class DualityInterface implements IGridTickable, IStorageMonitorable, IIn
 		if ( getInstalledUpgrades( Upgrades.CRAFTING ) == 0 )
 			cancelCrafting();
 
+		if ( settingName == Settings.INTERFACE_TERMINAL )
+		{
+			try
+			{
+				InterfaceTerminalCache itc = gridProxy.getGrid().getCache( InterfaceTerminalCache.class );
+				itc.interfacesChanged();
+			}
+			catch (GridAccessException e)
+			{
+				// :P
+			}
+		}
+
 		markDirty();
 	}
 
@@ -955,6 +982,16 @@ public class DualityInterface implements IGridTickable, IStorageMonitorable, IIn
 
 	public void notifyNeighbors()
 	{
+		try
+		{
+			InterfaceTerminalCache itc = gridProxy.getGrid().getCache( InterfaceTerminalCache.class );
+			itc.interfacesChanged();
+		}
+		catch (GridAccessException e)
+		{
+			// :P
+		}
+
 		if ( gridProxy.isActive() )
 		{
 			try
@@ -21,13 +21,11 @@ package appeng.helpers;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 
 import net.minecraft.inventory.InventoryCrafting;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.crafting.CraftingManager;
 import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
@@ -41,6 +39,9 @@ import appeng.util.ItemSorters;
 import appeng.util.Platform;
 import appeng.util.item.AEItemStack;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class PatternHelper implements ICraftingPatternDetails, Comparable<PatternHelper>
 {
 
@@ -61,24 +62,31 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 	final boolean isCrafting;
 	public int priority = 0;
 
+	/**
+	 * what a slot was tested with, identical patterns share their results.
+	 */
 	static class TestLookup
 	{
 
+		final IAEItemStack pattern;
 		final int slot;
-		final int ref;
+		final Item item;
+		final int damage;
+		final NBTTagCompound tag;
 		final int hash;
 
-		public TestLookup(int slot, ItemStack i)
-		{
-			this( slot, i.getItem(), i.getItemDamage() );
-		}
-
-		public TestLookup(int slot, Item item, int dmg)
+		public TestLookup(IAEItemStack pattern, int slot, ItemStack i, NBTTagCompound tag)
 		{
+			this.pattern = pattern;
 			this.slot = slot;
-			ref = (dmg << Platform.DEF_OFFSET) | (Item.getIdFromItem( item ) & 0xffff);
-			int offset = 3 * slot;
-			hash = (ref << offset) | (ref >> (offset + 32));
+			this.item = i.getItem();
+			this.damage = i.getItemDamage();
+			this.tag = tag;
+
+			int h = pattern.hashCode() * 31 + slot;
+			h = h * 31 + System.identityHashCode( item );
+			h = h * 31 + damage;
+			hash = h * 31 + (tag == null ? 0 : tag.hashCode());
 		}
 
 		@Override
@@ -95,7 +103,8 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 			if ( obj instanceof TestLookup )
 			{
 				TestLookup b = (TestLookup) obj;
-				equality = b.slot == slot && b.ref == ref;
+				equality = b.hash == hash && b.slot == slot && b.item == item && b.damage == damage && (tag == null ? b.tag == null : tag.equals( b.tag ))
+						&& b.pattern.equals( pattern );
 			}
 			else
 			{
@@ -112,15 +121,18 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 		ACCEPT, DECLINE, TEST
 	}
 
-	final HashSet<TestLookup> failCache = new HashSet<TestLookup>();
-	final HashSet<TestLookup> passCache = new HashSet<TestLookup>();
+	private static final int CACHED_TESTS = 16384;
+
+	// shared by every pattern and crafting cpu.
+	private static final Cache<TestLookup, Boolean> testCache = CacheBuilder.newBuilder().maximumSize( CACHED_TESTS ).build();
 
 	private void markItemAs(int slotIndex, ItemStack i, TestStatus b)
 	{
-		if ( b == TestStatus.TEST || i.hasTagCompound() )
+		if ( b == TestStatus.TEST )
 			return;
 
-		(b == TestStatus.ACCEPT ? passCache : failCache).add( new TestLookup( slotIndex, i ) );
+		NBTTagCompound tag = i.getTagCompound();
+		testCache.put( new TestLookup( pattern, slotIndex, i, tag == null ? null : (NBTTagCompound) tag.copy() ), b == TestStatus.ACCEPT );
 	}
 
 	private TestStatus getStatus(int slotIndex, ItemStack i)
@@ -131,16 +143,11 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 		if ( i == null )
 			return TestStatus.DECLINE;
 
-		if ( i.hasTagCompound() )
+		Boolean result = testCache.getIfPresent( new TestLookup( pattern, slotIndex, i, i.getTagCompound() ) );
+		if ( result == null )
 			return TestStatus.TEST;
 
-		if ( passCache.contains( new TestLookup( slotIndex, i ) ) )
-			return TestStatus.ACCEPT;
-
-		if ( failCache.contains( new TestLookup( slotIndex, i ) ) )
-			return TestStatus.DECLINE;
-
-		return TestStatus.TEST;
+		return result ? TestStatus.ACCEPT : TestStatus.DECLINE;
 	}
 
 	public PatternHelper(ItemStack is, World w)
@@ -164,7 +171,8 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 			ItemStack gs = ItemStack.loadItemStackFromNBT( inTag.getCompoundTagAt( x ) );
 			crafting.setInventorySlotContents( x, gs );
 
-			if ( gs != null && (!isCrafting || !gs.hasTagCompound()) )
+			// the encoded items pass by definition.
+			if ( gs != null && isCrafting && !gs.hasTagCompound() )
 			{
 				markItemAs( x, gs, TestStatus.ACCEPT );
 			}
@@ -241,7 +249,7 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 	}
 
 	@Override
-	synchronized public boolean isValidItemForSlot(int slotIndex, ItemStack i, World w)
+	public boolean isValidItemForSlot(int slotIndex, ItemStack i, World w)
 	{
 		if ( !isCrafting )
 		{
@@ -261,6 +269,14 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 			break;
 		}
 
+		synchronized (testFrame)
+		{
+			return testItemForSlot( slotIndex, i, w );
+		}
+	}
+
+	private boolean testItemForSlot(int slotIndex, ItemStack i, World w)
+	{
 		for (int x = 0; x < crafting.getSizeInventory(); x++)
 			testFrame.setInventorySlotContents( x, crafting.getStackInSlot( x ) );
 
@@ -279,7 +295,7 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 		}
 		else
 		{
-			ItemStack testOutput = CraftingManager.getInstance().findMatchingRecipe( testFrame, w );
+			ItemStack testOutput = Platform.findMatchingRecipeOutput( testFrame, w );
 
 			if ( Platform.isSameItemPrecise( correctOutput, testOutput ) )
 			{
@@ -21,10 +21,13 @@ package appeng.hooks;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
 import net.minecraft.world.World;
@@ -41,7 +44,9 @@ import appeng.core.sync.packets.PacketPaintedEntity;
 import appeng.crafting.CraftingJob;
 import appeng.entity.EntityFloatingItem;
 import appeng.me.Grid;
+import appeng.me.NetworkEventBus;
 import appeng.me.NetworkList;
+import appeng.me.storage.CellInventory;
 import appeng.tile.AEBaseTile;
 import appeng.util.Platform;
 
@@ -63,11 +68,14 @@ public class TickHandler
 
 		public Queue<AEBaseTile> tiles = new LinkedList<AEBaseTile>();
 
+		public Set<AEBaseTile> updates = new LinkedHashSet<AEBaseTile>();
+
 		public Collection<Grid> networks = new NetworkList();
 
 		public void clear()
 		{
 			tiles = new LinkedList<AEBaseTile>();
+			updates = new LinkedHashSet<AEBaseTile>();
 			networks = new NetworkList();
 		}
 
@@ -76,7 +84,8 @@ public class TickHandler
 	final public static TickHandler instance = new TickHandler();
 
 	final private WeakHashMap<World, Queue<Callable>> callQueue = new WeakHashMap<World, Queue<Callable>>();
-	final Queue<Callable> serverQueue = new LinkedList<Callable>();
+	// crafting jobs hand their results back from the calculation threads.
+	final Queue<Callable> serverQueue = new ConcurrentLinkedQueue<Callable>();
 
 	final private HandlerRep server = new HandlerRep();
 	final private HandlerRep client = new HandlerRep();
@@ -150,6 +159,15 @@ public class TickHandler
 			getRepo().tiles.add( tile );
 	}
 
+	/**
+	 * queues a description update, marking the same tile again during the tick sends it once.
+	 */
+	public void addUpdate(AEBaseTile tile)
+	{
+		if ( Platform.isServer() )
+			getRepo().updates.add( tile );
+	}
+
 	public void addNetwork(Grid grid)
 	{
 		if ( Platform.isServer() ) // for no there is no reason to care about this on the client...
@@ -260,8 +278,26 @@ public class TickHandler
 			for (Grid g : getRepo().networks)
 				g.update();
 
+			NetworkEventBus.deliverPendingTargeted();
+
 			// cross world queue.
 			processQueue( serverQueue );
+
+			// description updates, after everything that could still change the tiles.
+			if ( !repo.updates.isEmpty() )
+			{
+				Set<AEBaseTile> updates = repo.updates;
+				repo.updates = new LinkedHashSet<AEBaseTile>();
+
+				for (AEBaseTile bt : updates)
+				{
+					if ( !bt.isInvalid() && bt.getWorldObj() != null )
+						bt.sendUpdate();
+				}
+			}
+
+			// write cells changed during this tick.
+			CellInventory.flushDirtyCells();
 		}
 
 		// world synced queue(s)
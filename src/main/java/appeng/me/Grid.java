@@ -256,6 +256,14 @@ public class Grid implements IGrid
 		this.pivot = pivot;
 	}
 
+	/**
+	 * a node is about to move to another grid, which has to deliver what this one hasn't yet.
+	 */
+	public void carryPendingEvents( Grid to )
+	{
+		this.eventBus.carryPending( to.eventBus );
+	}
+
 	public void update()
 	{
 		for ( IGridCache gc : this.caches.values() )
@@ -264,6 +272,9 @@ public class Grid implements IGrid
 			if ( this.pivot != null )
 				gc.onUpdateTick();
 		}
+
+		if ( this.pivot != null )
+			this.eventBus.deliverPending( this );
 	}
 
 	public void saveState()
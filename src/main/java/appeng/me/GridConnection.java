@@ -47,7 +47,7 @@ public class GridConnection implements IGridConnection, IPathItem
 	private ForgeDirection fromAtoB;
 	private GridNode sideB;
 
-	Object visitorIterationNumber = null;
+	int visitorIterationNumber = 0;
 
 	public int channelData = 0;
 
@@ -128,8 +128,9 @@ public class GridConnection implements IGridConnection, IPathItem
 		sideA.removeConnection( this );
 		sideB.removeConnection( this );
 
-		sideA.validateGrid();
-		sideB.validateGrid();
+		GridNode detached = GridTraversal.findDetachedSide( sideA, sideB );
+		if ( detached != null )
+			detached.splitGrid();
 	}
 
 	@Override
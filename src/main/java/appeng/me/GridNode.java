@@ -19,11 +19,10 @@
 package appeng.me;
 
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Deque;
 import java.util.EnumSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -39,7 +38,6 @@ import appeng.api.networking.IGrid;
 import appeng.api.networking.IGridBlock;
 import appeng.api.networking.IGridCache;
 import appeng.api.networking.IGridConnection;
-import appeng.api.networking.IGridConnectionVisitor;
 import appeng.api.networking.IGridHost;
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.IGridVisitor;
@@ -60,7 +58,7 @@ public class GridNode implements IGridNode, IPathItem
 	private static final MENetworkChannelsChanged event = new MENetworkChannelsChanged();
 	private static final int[] channelCount = new int[] { 0, 8, 32 };
 
-	private final List<IGridConnection> connections = new LinkedList<IGridConnection>();
+	final List<IGridConnection> connections = new ArrayList<IGridConnection>();
 	private final IGridBlock gridProxy;
 	// old power draw, used to diff
 	public double previousDraw = 0.0;
@@ -68,7 +66,7 @@ public class GridNode implements IGridNode, IPathItem
 	public int playerID = -1;
 	private GridStorage myStorage = null;
 	private Grid myGrid;
-	private Object visitorIterationNumber = null;
+	int visitorIterationNumber = 0;
 	// connection criteria
 	private int compressedData = 0;
 	private int channelData = 0;
@@ -126,15 +124,13 @@ public class GridNode implements IGridNode, IPathItem
 		return false;
 	}
 
-	public void validateGrid()
+	/**
+	 * moves this node and everything still connected to it into a grid of its own.
+	 */
+	void splitGrid()
 	{
-		GridSplitDetector gsd = new GridSplitDetector( this.getInternalGrid().getPivot() );
-		this.beginVisit( gsd );
-		if ( !gsd.pivotFound )
-		{
-			IGridVisitor gp = new GridPropagator( new Grid( this ) );
-			this.beginVisit( gp );
-		}
+		IGridVisitor gp = new GridPropagator( new Grid( this ) );
+		this.beginVisit( gp );
 	}
 
 	@Override
@@ -155,41 +151,7 @@ public class GridNode implements IGridNode, IPathItem
 	@Override
 	public void beginVisit( IGridVisitor g )
 	{
-		Object tracker = new Object();
-
-		LinkedList<GridNode> nextRun = new LinkedList<GridNode>();
-		nextRun.add( this );
-
-		this.visitorIterationNumber = tracker;
-
-		if ( g instanceof IGridConnectionVisitor )
-		{
-			LinkedList<IGridConnection> nextConn = new LinkedList<IGridConnection>();
-			IGridConnectionVisitor gcv = ( IGridConnectionVisitor ) g;
-
-			while ( !nextRun.isEmpty() )
-			{
-				while ( !nextConn.isEmpty() )
-					gcv.visitConnection( nextConn.poll() );
-
-				LinkedList<GridNode> thisRun = nextRun;
-				nextRun = new LinkedList<GridNode>();
-
-				for ( GridNode n : thisRun )
-					n.visitorConnection( tracker, g, nextRun, nextConn );
-			}
-		}
-		else
-		{
-			while ( !nextRun.isEmpty() )
-			{
-				LinkedList<GridNode> thisRun = nextRun;
-				nextRun = new LinkedList<GridNode>();
-
-				for ( GridNode n : thisRun )
-					n.visitorNode( tracker, g, nextRun );
-			}
-		}
+		GridTraversal.visit( this, g );
 	}
 
 	@Override
@@ -227,6 +189,8 @@ public class GridNode implements IGridNode, IPathItem
 
 		if ( this.myGrid != null )
 		{
+			// coalesced broadcasts wait for the grid's tick, the old grid may be gone before it.
+			this.myGrid.carryPendingEvents( grid );
 			this.myGrid.remove( this );
 
 			if ( this.myGrid.isEmpty() )
@@ -472,19 +436,22 @@ public class GridNode implements IGridNode, IPathItem
 		return AEColor.values()[( this.compressedData >> 3 ) & 0x1F];
 	}
 
-	private void visitorConnection( Object tracker, IGridVisitor g, Deque<GridNode> nextRun, Deque<IGridConnection> nextConnections )
+	void visitorConnection( GridTraversal t, IGridVisitor g )
 	{
 		if ( g.visitNode( this ) )
 		{
-			for ( IGridConnection gc : this.getConnections() )
+			int tracker = t.getTracker();
+
+			for ( int x = 0; x < this.connections.size(); x++ )
 			{
+				IGridConnection gc = this.connections.get( x );
 				GridNode gn = ( GridNode ) gc.getOtherSide( this );
 				GridConnection gcc = ( GridConnection ) gc;
 
 				if ( gcc.visitorIterationNumber != tracker )
 				{
 					gcc.visitorIterationNumber = tracker;
-					nextConnections.add( gc );
+					t.queueConnection( gc );
 				}
 
 				if ( tracker == gn.visitorIterationNumber )
@@ -492,25 +459,27 @@ public class GridNode implements IGridNode, IPathItem
 
 				gn.visitorIterationNumber = tracker;
 
-				nextRun.add( gn );
+				t.queueNode( gn );
 			}
 		}
 	}
 
-	private void visitorNode( Object tracker, IGridVisitor g, Deque<GridNode> nextRun )
+	void visitorNode( GridTraversal t, IGridVisitor g )
 	{
 		if ( g.visitNode( this ) )
 		{
-			for ( IGridConnection gc : this.getConnections() )
+			int tracker = t.getTracker();
+
+			for ( int x = 0; x < this.connections.size(); x++ )
 			{
-				GridNode gn = ( GridNode ) gc.getOtherSide( this );
+				GridNode gn = ( GridNode ) this.connections.get( x ).getOtherSide( this );
 
 				if ( tracker == gn.visitorIterationNumber )
 					continue;
 
 				gn.visitorIterationNumber = tracker;
 
-				nextRun.add( gn );
+				t.queueNode( gn );
 			}
 		}
 	}
@@ -0,0 +1,260 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me;
+
+import java.util.Arrays;
+
+import appeng.api.networking.IGridConnection;
+import appeng.api.networking.IGridConnectionVisitor;
+import appeng.api.networking.IGridVisitor;
+
+/**
+ * Breadth first walk behind {@link GridNode#beginVisit}, one layer at a time like before, but the frontiers are
+ * reused arrays and nodes / connections are marked with an int epoch, so a visit doesn't allocate per node or layer.
+ * The same arrays back the split search run when a connection is removed.
+ */
+class GridTraversal
+{
+
+	// traversals are kept for the next visit, a visit started from inside another one gets its own.
+	private static GridTraversal free = null;
+
+	// 0 is the unvisited marker, it takes 2^32 visits for a stale marker to come around again.
+	private static int lastEpoch = 0;
+
+	private GridNode[] thisRun = new GridNode[64];
+	private GridNode[] nextRun = new GridNode[64];
+	private int nextSize = 0;
+
+	private IGridConnection[] nextConn = new IGridConnection[64];
+	private int connSize = 0;
+
+	// how much of thisRun and nextRun may still hold nodes, so clearing never walks more than was used.
+	private int thisUsed = 0;
+	private int nextUsed = 0;
+
+	private int tracker;
+
+	private GridTraversal()
+	{
+	}
+
+	static void visit( GridNode start, IGridVisitor g )
+	{
+		GridTraversal t = free;
+		free = null;
+
+		if ( t == null )
+			t = new GridTraversal();
+
+		boolean done = false;
+		try
+		{
+			t.run( start, g );
+			done = true;
+		}
+		finally
+		{
+			if ( !done )
+				t.clear();
+
+			free = t;
+		}
+	}
+
+	/**
+	 * Searches from both ends of a removed connection at the same pace until the searches meet or one of them runs
+	 * out of nodes, so a split only costs as much as its smaller side.
+	 *
+	 * @return the node of the side that is no longer connected to the other one, the smaller side when split, or
+	 *         null if both ends are still connected.
+	 */
+	static GridNode findDetachedSide( GridNode a, GridNode b )
+	{
+		GridTraversal t = free;
+		free = null;
+
+		if ( t == null )
+			t = new GridTraversal();
+
+		try
+		{
+			return t.search( a, b );
+		}
+		finally
+		{
+			t.clear();
+			free = t;
+		}
+	}
+
+	private static int nextEpoch()
+	{
+		if ( ++lastEpoch == 0 )
+			++lastEpoch;
+
+		return lastEpoch;
+	}
+
+	private void run( GridNode start, IGridVisitor g )
+	{
+		this.tracker = nextEpoch();
+
+		IGridConnectionVisitor gcv = g instanceof IGridConnectionVisitor ? ( IGridConnectionVisitor ) g : null;
+
+		start.visitorIterationNumber = this.tracker;
+		this.queueNode( start );
+
+		while ( this.nextSize > 0 )
+		{
+			for ( int x = 0; x < this.connSize; x++ )
+			{
+				IGridConnection gc = this.nextConn[x];
+				this.nextConn[x] = null;
+				gcv.visitConnection( gc );
+			}
+			this.connSize = 0;
+
+			GridNode[] run = this.nextRun;
+			int size = this.nextSize;
+
+			this.nextRun = this.thisRun;
+			this.thisRun = run;
+			this.thisUsed = size;
+			this.nextSize = 0;
+
+			for ( int x = 0; x < size; x++ )
+			{
+				GridNode n = run[x];
+				run[x] = null;
+
+				if ( gcv != null )
+					n.visitorConnection( this, g );
+				else
+					n.visitorNode( this, g );
+			}
+		}
+
+		// connections queued by the last layer are dropped, same as the old linked list walk.
+		Arrays.fill( this.nextConn, 0, this.connSize, null );
+		this.connSize = 0;
+		this.thisUsed = 0;
+	}
+
+	private GridNode search( GridNode a, GridNode b )
+	{
+		if ( a == b )
+			return null;
+
+		int trackerA = nextEpoch();
+		int trackerB = nextEpoch();
+
+		// thisRun is the queue of a, nextRun the queue of b, their tails are kept in thisUsed and nextUsed.
+		int headA = 0;
+		int headB = 0;
+
+		a.visitorIterationNumber = trackerA;
+		this.thisRun[0] = a;
+		this.thisUsed = 1;
+
+		b.visitorIterationNumber = trackerB;
+		this.nextRun[0] = b;
+		this.nextUsed = 1;
+
+		while ( true )
+		{
+			if ( headA == this.thisUsed )
+				return a;
+
+			if ( headB == this.nextUsed )
+				return b;
+
+			GridNode n = this.thisRun[headA++];
+			for ( int x = 0; x < n.connections.size(); x++ )
+			{
+				GridNode gn = ( GridNode ) n.connections.get( x ).getOtherSide( n );
+
+				if ( gn.visitorIterationNumber == trackerB )
+					return null;
+
+				if ( gn.visitorIterationNumber != trackerA )
+				{
+					gn.visitorIterationNumber = trackerA;
+
+					if ( this.thisUsed == this.thisRun.length )
+						this.thisRun = Arrays.copyOf( this.thisRun, this.thisUsed * 2 );
+
+					this.thisRun[this.thisUsed++] = gn;
+				}
+			}
+
+			n = this.nextRun[headB++];
+			for ( int x = 0; x < n.connections.size(); x++ )
+			{
+				GridNode gn = ( GridNode ) n.connections.get( x ).getOtherSide( n );
+
+				if ( gn.visitorIterationNumber == trackerA )
+					return null;
+
+				if ( gn.visitorIterationNumber != trackerB )
+				{
+					gn.visitorIterationNumber = trackerB;
+
+					if ( this.nextUsed == this.nextRun.length )
+						this.nextRun = Arrays.copyOf( this.nextRun, this.nextUsed * 2 );
+
+					this.nextRun[this.nextUsed++] = gn;
+				}
+			}
+		}
+	}
+
+	int getTracker()
+	{
+		return this.tracker;
+	}
+
+	void queueNode( GridNode gn )
+	{
+		if ( this.nextSize == this.nextRun.length )
+			this.nextRun = Arrays.copyOf( this.nextRun, this.nextSize * 2 );
+
+		this.nextRun[this.nextSize++] = gn;
+	}
+
+	void queueConnection( IGridConnection gc )
+	{
+		if ( this.connSize == this.nextConn.length )
+			this.nextConn = Arrays.copyOf( this.nextConn, this.connSize * 2 );
+
+		this.nextConn[this.connSize++] = gc;
+	}
+
+	private void clear()
+	{
+		Arrays.fill( this.thisRun, 0, this.thisUsed, null );
+		Arrays.fill( this.nextRun, 0, Math.max( this.nextUsed, this.nextSize ), null );
+		Arrays.fill( this.nextConn, 0, this.connSize, null );
+		this.thisUsed = 0;
+		this.nextUsed = 0;
+		this.nextSize = 0;
+		this.connSize = 0;
+	}
+
+}
@@ -20,18 +20,29 @@ package appeng.me;
 
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
 import appeng.api.networking.IGridNode;
+import appeng.api.networking.events.MENetworkBootingStatusChange;
+import appeng.api.networking.events.MENetworkChannelsChanged;
 import appeng.api.networking.events.MENetworkEvent;
 import appeng.api.networking.events.MENetworkEventSubscribe;
+import appeng.api.networking.events.MENetworkPowerStatusChange;
 import appeng.core.AELog;
+import appeng.util.GeneratedClassLoader;
 
 
 public class NetworkEventBus
@@ -39,6 +50,27 @@ public class NetworkEventBus
 	private static final Collection<Class> readClasses = new HashSet<Class>();
 	private static final Map<Class<? extends MENetworkEvent>, Map<Class, MENetworkEventInfo>> events = new HashMap<Class<? extends MENetworkEvent>, Map<Class, MENetworkEventInfo>>();
 
+	private static final Map<Method, Invoker> invokers = new HashMap<Method, Invoker>();
+
+	/**
+	 * events that only say "check again", posting one again before the first was delivered tells nobody anything new, so
+	 * they are held until the end of the tick and delivered once.
+	 */
+	private static final Collection<Class> coalescedBroadcasts = new HashSet<Class>();
+	private static final Collection<Class> coalescedTargeted = new HashSet<Class>();
+
+	static
+	{
+		coalescedBroadcasts.add( MENetworkPowerStatusChange.class );
+		coalescedBroadcasts.add( MENetworkBootingStatusChange.class );
+		coalescedTargeted.add( MENetworkChannelsChanged.class );
+	}
+
+	// nodes can move to another grid before the tick ends, so these are kept for all grids.
+	private static final Map<GridNode, MENetworkEvent> pendingTargeted = new LinkedHashMap<GridNode, MENetworkEvent>();
+
+	private final Map<Class, MENetworkEvent> pendingBroadcasts = new LinkedHashMap<Class, MENetworkEvent>();
+
 	public void readClass( Class listAs, Class c )
 	{
 		if ( readClasses.contains( c ) )
@@ -84,72 +116,218 @@ public class NetworkEventBus
 		}
 	}
 
+	/**
+	 * coalesced events are only queued here and go out with {@link #deliverPending(Grid)}.
+	 */
 	public MENetworkEvent postEvent( Grid g, MENetworkEvent e )
+	{
+		if ( coalescedBroadcasts.contains( e.getClass() ) )
+		{
+			if ( !this.pendingBroadcasts.containsKey( e.getClass() ) )
+				this.pendingBroadcasts.put( e.getClass(), e );
+
+			return e;
+		}
+
+		return this.deliver( g, e );
+	}
+
+	/**
+	 * coalesced events are only queued here and go out with {@link #deliverPendingTargeted()}.
+	 */
+	public MENetworkEvent postEventTo( Grid grid, GridNode node, MENetworkEvent e )
+	{
+		if ( coalescedTargeted.contains( e.getClass() ) )
+		{
+			pendingTargeted.put( node, e );
+			return e;
+		}
+
+		return deliverTo( node, e );
+	}
+
+	/**
+	 * delivers the broadcasts coalesced during the grid's tick, anything they post in turn waits for the next one.
+	 */
+	public void deliverPending( Grid g )
+	{
+		if ( this.pendingBroadcasts.isEmpty() )
+			return;
+
+		List<MENetworkEvent> broadcasts = new ArrayList<MENetworkEvent>( this.pendingBroadcasts.values() );
+		this.pendingBroadcasts.clear();
+
+		for ( MENetworkEvent e : broadcasts )
+			this.deliver( g, e );
+	}
+
+	/**
+	 * queues the broadcasts still waiting here on another bus as well, nodes moving to its grid would miss them.
+	 */
+	public void carryPending( NetworkEventBus to )
+	{
+		for ( MENetworkEvent e : this.pendingBroadcasts.values() )
+		{
+			if ( !to.pendingBroadcasts.containsKey( e.getClass() ) )
+				to.pendingBroadcasts.put( e.getClass(), e );
+		}
+	}
+
+	/**
+	 * delivers the node events coalesced during the tick, call once all grids have been updated.
+	 */
+	public static void deliverPendingTargeted()
+	{
+		if ( pendingTargeted.isEmpty() )
+			return;
+
+		List<Entry<GridNode, MENetworkEvent>> targeted = new ArrayList<Entry<GridNode, MENetworkEvent>>( pendingTargeted.entrySet() );
+		pendingTargeted.clear();
+
+		for ( Entry<GridNode, MENetworkEvent> t : targeted )
+		{
+			// removed nodes don't get any events.
+			if ( t.getKey().getInternalGrid() != null )
+				deliverTo( t.getKey(), t.getValue() );
+		}
+	}
+
+	private MENetworkEvent deliver( Grid g, MENetworkEvent e )
 	{
 		Map<Class, MENetworkEventInfo> subscribers = events.get( e.getClass() );
 		int x = 0;
 
-		try
+		if ( subscribers != null )
 		{
-			if ( subscribers != null )
+			deliver:
+			for ( Entry<Class, MENetworkEventInfo> subscriber : subscribers.entrySet() )
 			{
-				for ( Entry<Class, MENetworkEventInfo> subscriber : subscribers.entrySet() )
+				MENetworkEventInfo target = subscriber.getValue();
+				GridCacheWrapper cache = g.getCaches().get( subscriber.getKey() );
+				if ( cache != null )
 				{
-					MENetworkEventInfo target = subscriber.getValue();
-					GridCacheWrapper cache = g.getCaches().get( subscriber.getKey() );
-					if ( cache != null )
-					{
-						x++;
-						target.invoke( cache.myCache, e );
-					}
+					x++;
+					if ( target.invoke( cache.myCache, e ) )
+						break deliver;
+				}
 
-					for ( IGridNode obj : g.getMachines( subscriber.getKey() ) )
-					{
-						x++;
-						target.invoke( obj.getMachine(), e );
-					}
+				for ( IGridNode obj : g.getMachines( subscriber.getKey() ) )
+				{
+					x++;
+					if ( target.invoke( obj.getMachine(), e ) )
+						break deliver;
 				}
 			}
 		}
-		catch ( NetworkEventDone done )
-		{
-			// Early out.
-		}
 
 		e.setVisitedObjects( x );
 		return e;
 	}
 
-	public MENetworkEvent postEventTo( Grid grid, GridNode node, MENetworkEvent e )
+	private static MENetworkEvent deliverTo( GridNode node, MENetworkEvent e )
 	{
 		Map<Class, MENetworkEventInfo> subscribers = events.get( e.getClass() );
 		int x = 0;
 
-		try
+		if ( subscribers != null )
 		{
-			if ( subscribers != null )
+			MENetworkEventInfo target = subscribers.get( node.getMachineClass() );
+			if ( target != null )
 			{
-				MENetworkEventInfo target = subscribers.get( node.getMachineClass() );
-				if ( target != null )
-				{
-					x++;
-					target.invoke( node.getMachine(), e );
-				}
+				x++;
+				target.invoke( node.getMachine(), e );
 			}
 		}
-		catch ( NetworkEventDone done )
-		{
-			// Early out.
-		}
 
 		e.setVisitedObjects( x );
 		return e;
 	}
 
-	static class NetworkEventDone extends Throwable
+	/**
+	 * calls one subscriber method, generated for each public method so events don't go through reflection.
+	 */
+	public static abstract class Invoker
 	{
 
-		private static final long serialVersionUID = -3079021487019171205L;
+		public abstract void invoke( Object obj, MENetworkEvent e ) throws Exception;
+	}
+
+
+	static class ReflectiveInvoker extends Invoker
+	{
+
+		private final Method method;
+
+		public ReflectiveInvoker( Method method )
+		{
+			this.method = method;
+		}
+
+		@Override
+		public void invoke( Object obj, MENetworkEvent e ) throws Exception
+		{
+			this.method.invoke( obj, e );
+		}
+	}
+
+
+	private static Invoker getInvoker( Method m ) throws Exception
+	{
+		Invoker invoker = invokers.get( m );
+		if ( invoker == null )
+		{
+			invoker = createInvoker( m );
+			invokers.put( m, invoker );
+		}
+
+		return invoker;
+	}
+
+	private static Invoker createInvoker( Method m ) throws Exception
+	{
+		Class owner = m.getDeclaringClass();
+		Class event = m.getParameterTypes()[0];
+
+		// see GeneratedClassLoader, only public classes can be called directly.
+		if ( !Modifier.isPublic( owner.getModifiers() ) || !Modifier.isPublic( event.getModifiers() ) )
+			return new ReflectiveInvoker( m );
+
+		String name = GeneratedClassLoader.instance.nextName( NetworkEventBus.class, "Invoker" ).replace( '.', '/' );
+		String ownerName = Type.getInternalName( owner );
+
+		ClassWriter cw = new ClassWriter( ClassWriter.COMPUTE_MAXS );
+		cw.visit( Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, Type.getInternalName( Invoker.class ), null );
+
+		MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "<init>", "()V", null, null );
+		mv.visitCode();
+		mv.visitVarInsn( Opcodes.ALOAD, 0 );
+		mv.visitMethodInsn( Opcodes.INVOKESPECIAL, Type.getInternalName( Invoker.class ), "<init>", "()V", false );
+		mv.visitInsn( Opcodes.RETURN );
+		mv.visitMaxs( 0, 0 );
+		mv.visitEnd();
+
+		mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "invoke", Type.getMethodDescriptor( Type.VOID_TYPE, Type.getType( Object.class ), Type.getType( MENetworkEvent.class ) ), null, null );
+		mv.visitCode();
+		mv.visitVarInsn( Opcodes.ALOAD, 1 );
+		mv.visitTypeInsn( Opcodes.CHECKCAST, ownerName );
+		mv.visitVarInsn( Opcodes.ALOAD, 2 );
+		mv.visitTypeInsn( Opcodes.CHECKCAST, Type.getInternalName( event ) );
+		mv.visitMethodInsn( owner.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, ownerName, m.getName(), Type.getMethodDescriptor( m ), owner.isInterface() );
+
+		int returnSize = Type.getReturnType( m ).getSize();
+		if ( returnSize == 1 )
+			mv.visitInsn( Opcodes.POP );
+		else if ( returnSize == 2 )
+			mv.visitInsn( Opcodes.POP2 );
+
+		mv.visitInsn( Opcodes.RETURN );
+		mv.visitMaxs( 0, 0 );
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		Class c = GeneratedClassLoader.instance.define( name.replace( '/', '.' ), cw.toByteArray() );
+		return ( Invoker ) c.newInstance();
 	}
 
 
@@ -159,19 +337,24 @@ public class NetworkEventBus
 		public final Class objClass;
 		public final Method objMethod;
 		public final Class objEvent;
+		public final Invoker invoker;
 
-		public EventMethod( Class Event, Class ObjClass, Method ObjMethod )
+		public EventMethod( Class Event, Class ObjClass, Method ObjMethod ) throws Exception
 		{
 			this.objClass = ObjClass;
 			this.objMethod = ObjMethod;
 			this.objEvent = Event;
+			this.invoker = getInvoker( ObjMethod );
 		}
 
-		public void invoke( Object obj, MENetworkEvent e ) throws NetworkEventDone
+		/**
+		 * @return true if the event was canceled and should go no further.
+		 */
+		public boolean invoke( Object obj, MENetworkEvent e )
 		{
 			try
 			{
-				this.objMethod.invoke( obj, e );
+				this.invoker.invoke( obj, e );
 			}
 			catch ( Throwable e1 )
 			{
@@ -182,8 +365,7 @@ public class NetworkEventBus
 				throw new RuntimeException( e1 );
 			}
 
-			if ( e.isCanceled() )
-				throw new NetworkEventDone();
+			return e.isCanceled();
 		}
 	}
 
@@ -193,15 +375,23 @@ public class NetworkEventBus
 
 		private final List<EventMethod> methods = new ArrayList<EventMethod>();
 
-		public void Add( Class Event, Class ObjClass, Method ObjMethod )
+		public void Add( Class Event, Class ObjClass, Method ObjMethod ) throws Exception
 		{
 			this.methods.add( new EventMethod( Event, ObjClass, ObjMethod ) );
 		}
 
-		public void invoke( Object obj, MENetworkEvent e ) throws NetworkEventDone
+		/**
+		 * @return true if the event was canceled and should go no further.
+		 */
+		public boolean invoke( Object obj, MENetworkEvent e )
 		{
-			for ( EventMethod em : this.methods )
-				em.invoke( obj, e );
+			for ( int x = 0; x < this.methods.size(); x++ )
+			{
+				if ( this.methods.get( x ).invoke( obj, e ) )
+					return true;
+			}
+
+			return false;
 		}
 	}
 }
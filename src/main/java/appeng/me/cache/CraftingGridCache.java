@@ -21,9 +21,11 @@ package appeng.me.cache;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.*;
 import net.minecraft.world.World;
@@ -58,10 +60,12 @@ import appeng.api.storage.StorageChannel;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
 import appeng.crafting.CraftingJob;
 import appeng.crafting.CraftingLink;
 import appeng.crafting.CraftingLinkNexus;
 import appeng.crafting.CraftingWatcher;
+import appeng.crafting.PatternExpansion;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
 import appeng.me.helpers.GenericInterestManager;
 import appeng.tile.crafting.TileCraftingStorageTile;
@@ -83,12 +87,50 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 	private final Map<ICraftingPatternDetails, List<ICraftingMedium>> craftingMethods = new HashMap<ICraftingPatternDetails, List<ICraftingMedium>>();
 	private final Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> craftableItems = new HashMap<IAEItemStack, ImmutableList<ICraftingPatternDetails>>();
 	private final Set<IAEItemStack> emitableItems = new HashSet<IAEItemStack>();
+
+	// pattern graph expansions shared by every crafting job, only valid until the patterns change.
+	private final Map<ICraftingPatternDetails, PatternExpansion> expansions = new HashMap<ICraftingPatternDetails, PatternExpansion>();
+	private final Map<SubstituteLookup, ImmutableCollection<ICraftingPatternDetails>> substitutes = new HashMap<SubstituteLookup, ImmutableCollection<ICraftingPatternDetails>>();
 	private final Map<String, CraftingLinkNexus> craftingLinks = new HashMap<String, CraftingLinkNexus>();
 
 	private boolean updateList = false;
 	private final Multimap<IAEStack, CraftingWatcher> interests = HashMultimap.create();
 	public final GenericInterestManager<CraftingWatcher> interestManager = new GenericInterestManager<CraftingWatcher>( this.interests );
 
+	static class SubstituteLookup
+	{
+
+		final IAEItemStack what;
+		final ICraftingPatternDetails details;
+		final int slot;
+
+		public SubstituteLookup(IAEItemStack what, ICraftingPatternDetails details, int slot)
+		{
+			this.what = what;
+			this.details = details;
+			this.slot = slot;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (what.hashCode() * 31 + System.identityHashCode( details )) * 31 + slot;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if ( obj instanceof SubstituteLookup )
+			{
+				SubstituteLookup b = (SubstituteLookup) obj;
+				return b.details == details && b.slot == slot && b.what.equals( what );
+			}
+
+			return false;
+		}
+
+	}
+
 	static class ActiveCpuIterator implements Iterator<ICraftingCPU>
 	{
 
@@ -327,15 +369,19 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 
 	private void updatePatterns()
 	{
-		Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> oldItems = this.craftableItems;
+		// copied, the maps are erased below and the network monitor needs to know what stopped being craftable.
+		Set<IAEItemStack> oldItems = new HashSet<IAEItemStack>( this.craftableItems.keySet() );
+		addEmitable( oldItems );
 
 		// erase list.
 		this.craftingMethods.clear();
 		this.craftableItems.clear();
 		this.emitableItems.clear();
+		this.expansions.clear();
+		this.substitutes.clear();
 
 		// update the stuff that was in the list...
-		this.storageGrid.postAlterationOfStoredItems( StorageChannel.ITEMS, oldItems.keySet(), new BaseActionSource() );
+		this.storageGrid.postAlterationOfStoredItems( StorageChannel.ITEMS, oldItems, new BaseActionSource() );
 
 		// re-create list..
 		for (ICraftingProvider provider : this.craftingProviders)
@@ -371,7 +417,33 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 			this.craftableItems.put( e.getKey(), ImmutableList.copyOf( e.getValue() ) );
 		}
 
-		this.storageGrid.postAlterationOfStoredItems( StorageChannel.ITEMS, this.craftableItems.keySet(), new BaseActionSource() );
+		Set<IAEItemStack> newItems = new HashSet<IAEItemStack>( this.craftableItems.keySet() );
+		addEmitable( newItems );
+
+		this.storageGrid.postAlterationOfStoredItems( StorageChannel.ITEMS, newItems, new BaseActionSource() );
+	}
+
+	/**
+	 * emitable items are kept as the level emitters configured them, they are posted with no size like the craftable
+	 * ones so the network monitor doesn't count them as stored.
+	 */
+	private void addEmitable(Set<IAEItemStack> posted)
+	{
+		for (IAEItemStack st : this.emitableItems)
+		{
+			IAEItemStack key = st.copy();
+			key.reset();
+			key.setCraftable( true );
+			posted.add( key );
+		}
+	}
+
+	/**
+	 * @return true if the network can currently craft or emit the item, used to keep the cached storage list honest.
+	 */
+	public boolean isCraftable(IAEItemStack what)
+	{
+		return this.craftableItems.containsKey( what ) || this.emitableItems.contains( what );
 	}
 
 	@Override
@@ -552,16 +624,30 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 		{
 			if ( details != null && details.isCraftable() )
 			{
-				for (IAEItemStack ais : this.craftableItems.keySet())
+				SubstituteLookup key = new SubstituteLookup( whatToCraft, details, slotIndex );
+				ImmutableCollection<ICraftingPatternDetails> found = this.substitutes.get( key );
+
+				if ( found == null )
 				{
-					if ( ais.getItem() == whatToCraft.getItem() && (!ais.getItem().getHasSubtypes() || ais.getItemDamage() == whatToCraft.getItemDamage()) )
+					found = ImmutableSet.of();
+
+					for (IAEItemStack ais : this.craftableItems.keySet())
 					{
-						if ( details.isValidItemForSlot( slotIndex, ais.getItemStack(), world ) )
+						if ( ais.getItem() == whatToCraft.getItem() && (!ais.getItem().getHasSubtypes() || ais.getItemDamage() == whatToCraft.getItemDamage()) )
 						{
-							return this.craftableItems.get( ais );
+							if ( details.isValidItemForSlot( slotIndex, ais.getItemStack(), world ) )
+							{
+								found = this.craftableItems.get( ais );
+								break;
+							}
 						}
 					}
+
+					// the requested stack is resized as the job runs, keep a copy.
+					this.substitutes.put( new SubstituteLookup( whatToCraft.copy(), details, slotIndex ), found );
 				}
+
+				return found;
 			}
 
 			return ImmutableSet.of();
@@ -570,6 +656,22 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 		return res;
 	}
 
+	/**
+	 * Crafting trees are built on the server thread, so unlike the calculation itself this needs no locking.
+	 */
+	public PatternExpansion getExpansion(ICraftingPatternDetails details, World world)
+	{
+		PatternExpansion expansion = this.expansions.get( details );
+
+		if ( expansion == null )
+		{
+			expansion = new PatternExpansion( details, world );
+			this.expansions.put( details, expansion );
+		}
+
+		return expansion;
+	}
+
 	public List<ICraftingMedium> getMediums(ICraftingPatternDetails key)
 	{
 		List<ICraftingMedium> mediums = craftingMethods.get( key );
@@ -602,7 +704,12 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 
 		};
 
-		craftingPool = Executors.newCachedThreadPool( factory );
+		// bounded, jobs beyond the thread count wait in the queue instead of each getting a thread.
+		int threads = AEConfig.instance == null ? 1 : Math.max( 1, AEConfig.instance.craftingCalculationThreads );
+		ThreadPoolExecutor pool = new ThreadPoolExecutor( threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), factory );
+		pool.allowCoreThreadTimeOut( true );
+
+		craftingPool = pool;
 	}
 
 	@Override
@@ -132,6 +132,9 @@ public class GridStorageCache implements IStorageGrid
 	{
 		inactiveCellProviders.add( provider );
 		addCellProvider( provider, new CellChangeTracker() ).applyChanges();
+
+		itemMonitor.forceUpdate();
+		fluidMonitor.forceUpdate();
 	}
 
 	@Override
@@ -139,6 +142,9 @@ public class GridStorageCache implements IStorageGrid
 	{
 		removeCellProvider( provider, new CellChangeTracker() ).applyChanges();
 		inactiveCellProviders.remove( provider );
+
+		itemMonitor.forceUpdate();
+		fluidMonitor.forceUpdate();
 	}
 
 	public CellChangeTracker addCellProvider(ICellProvider cc, CellChangeTracker tracker)
@@ -222,10 +228,11 @@ public class GridStorageCache implements IStorageGrid
 				removeCellProvider( cc, tracker );
 		}
 
+		tracker.applyChanges();
+
+		// rebuilt after the changes, so a list read while they are posted can't count them twice.
 		itemMonitor.forceUpdate();
 		fluidMonitor.forceUpdate();
-
-		tracker.applyChanges();
 	}
 
 	@Override
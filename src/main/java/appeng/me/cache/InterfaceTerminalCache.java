@@ -0,0 +1,149 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import appeng.api.networking.IGrid;
+import appeng.api.networking.IGridCache;
+import appeng.api.networking.IGridHost;
+import appeng.api.networking.IGridNode;
+import appeng.api.networking.IGridStorage;
+import appeng.api.networking.events.MENetworkBootingStatusChange;
+import appeng.api.networking.events.MENetworkEventSubscribe;
+import appeng.api.networking.events.MENetworkPowerStatusChange;
+import appeng.helpers.IInterfaceHost;
+
+/**
+ * Collects what open interface terminals need to resend, so they don't have to compare every interface on the network
+ * each tick.
+ */
+public class InterfaceTerminalCache implements IGridCache
+{
+
+	/**
+	 * changes seen by one interface terminal since it last caught up.
+	 */
+	public static class Changes
+	{
+
+		/**
+		 * interfaces joined, left or could have changed their visibility, the whole list has to be rebuilt.
+		 */
+		public boolean rebuild = true;
+
+		/**
+		 * interfaces with changed pattern slots.
+		 */
+		public final Set<IInterfaceHost> patterns = new HashSet<IInterfaceHost>();
+
+	}
+
+	final private List<Changes> listeners = new ArrayList<Changes>();
+
+	final IGrid myGrid;
+
+	public InterfaceTerminalCache(IGrid g) {
+		myGrid = g;
+	}
+
+	public Changes subscribe()
+	{
+		Changes c = new Changes();
+		listeners.add( c );
+		return c;
+	}
+
+	public void unsubscribe(Changes c)
+	{
+		listeners.remove( c );
+	}
+
+	public void patternsChanged(IInterfaceHost host)
+	{
+		for (Changes c : listeners)
+		{
+			if ( !c.rebuild )
+				c.patterns.add( host );
+		}
+	}
+
+	public void interfacesChanged()
+	{
+		for (Changes c : listeners)
+		{
+			c.rebuild = true;
+			c.patterns.clear();
+		}
+	}
+
+	@MENetworkEventSubscribe
+	public void bootingStatus(MENetworkBootingStatusChange c)
+	{
+		interfacesChanged();
+	}
+
+	@MENetworkEventSubscribe
+	public void powerStatus(MENetworkPowerStatusChange c)
+	{
+		interfacesChanged();
+	}
+
+	@Override
+	public void onUpdateTick()
+	{
+
+	}
+
+	@Override
+	public void addNode(IGridNode node, IGridHost machine)
+	{
+		if ( machine instanceof IInterfaceHost )
+			interfacesChanged();
+	}
+
+	@Override
+	public void removeNode(IGridNode node, IGridHost machine)
+	{
+		if ( machine instanceof IInterfaceHost )
+			interfacesChanged();
+	}
+
+	@Override
+	public void onSplit(IGridStorage storageB)
+	{
+
+	}
+
+	@Override
+	public void onJoin(IGridStorage storageB)
+	{
+
+	}
+
+	@Override
+	public void populateGridStorage(IGridStorage storage)
+	{
+
+	}
+
+}
@@ -18,20 +18,30 @@
 
 package appeng.me.cache;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
+import net.minecraft.item.Item;
+import appeng.api.config.FuzzyMode;
+import appeng.api.networking.crafting.ICraftingGrid;
 import appeng.api.networking.events.MENetworkStorageEvent;
 import appeng.api.networking.security.BaseActionSource;
 import appeng.api.storage.IMEInventoryHandler;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.MEMonitorHandler;
 import appeng.api.storage.StorageChannel;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
 import appeng.me.storage.ItemWatcher;
+import appeng.util.item.FuzzyTotal;
 
 public class NetworkMonitor<T extends IAEStack<T>> extends MEMonitorHandler<T>
 {
@@ -41,9 +51,27 @@ public class NetworkMonitor<T extends IAEStack<T>> extends MEMonitorHandler<T>
 
 	boolean sendEvent = false;
 
+	/**
+	 * aggregated view of the whole network, built from the handlers and then kept current purely from the changes
+	 * passing through postChange; providers joining or leaving post their own contents as a change. It is built again
+	 * on the next read after {@link #forceUpdate}, which drops anything the changes got wrong.
+	 */
+	private final IItemList<T> storageList;
+	private boolean needsRebuild = true;
+
+	// changes to watched items since the last tick, added up per source and item.
+	private Map<BaseActionSource, IItemList<T>> watchedChanges = new LinkedHashMap<BaseActionSource, IItemList<T>>();
+	private Map<BaseActionSource, IItemList<T>> spareWatchedChanges = new LinkedHashMap<BaseActionSource, IItemList<T>>();
+	private final List<IItemList<T>> spareLists = new ArrayList<IItemList<T>>();
+
+	// totals level emitters report, kept current from the same changes as the storage list.
+	private long storedTotal = 0;
+	private final Map<FuzzyTotal, FuzzyTotal> fuzzyTotals = new HashMap<FuzzyTotal, FuzzyTotal>();
+	private final Map<Item, List<FuzzyTotal>> fuzzyTotalsByItem = new HashMap<Item, List<FuzzyTotal>>();
+
 	public void forceUpdate()
 	{
-		hasChanged = true;
+		needsRebuild = true;
 
 		Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> i = getListeners();
 		while (i.hasNext())
@@ -62,6 +90,121 @@ public class NetworkMonitor<T extends IAEStack<T>> extends MEMonitorHandler<T>
 		super( null, chan );
 		myGridCache = cache;
 		myChannel = chan;
+		storageList = (IItemList<T>) chan.createList();
+	}
+
+	@Override
+	public IItemList<T> getStorageList()
+	{
+		if ( needsRebuild )
+		{
+			needsRebuild = false;
+			storageList.resetStatus();
+			getAvailableItems( storageList );
+
+			storedTotal = 0;
+			for (T stored : storageList)
+				storedTotal += stored.getStackSize();
+
+			for (FuzzyTotal ft : fuzzyTotals.keySet())
+				ft.recount( (IItemList<IAEItemStack>) storageList );
+		}
+
+		return storageList;
+	}
+
+	/**
+	 * @return the amount of everything on the network, without walking the storage list.
+	 */
+	public long getStoredTotal()
+	{
+		getStorageList();
+		return storedTotal;
+	}
+
+	/**
+	 * @return a running total of what a fuzzy search for the filter would find, shared with every other user of the
+	 *         same filter and mode until they all {@link #unwatchFuzzy} it.
+	 */
+	public FuzzyTotal watchFuzzy(IAEItemStack filter, FuzzyMode mode)
+	{
+		getStorageList();
+
+		FuzzyTotal ft = new FuzzyTotal( filter, mode );
+		FuzzyTotal existing = fuzzyTotals.get( ft );
+
+		if ( existing == null )
+		{
+			existing = ft;
+			fuzzyTotals.put( ft, ft );
+
+			for (Item item : ft.getItems())
+			{
+				List<FuzzyTotal> list = fuzzyTotalsByItem.get( item );
+				if ( list == null )
+					fuzzyTotalsByItem.put( item, list = new ArrayList<FuzzyTotal>() );
+
+				list.add( ft );
+			}
+
+			ft.recount( (IItemList<IAEItemStack>) storageList );
+		}
+
+		existing.acquire();
+		return existing;
+	}
+
+	public void unwatchFuzzy(FuzzyTotal ft)
+	{
+		if ( ft.release() && fuzzyTotals.remove( ft ) != null )
+		{
+			for (Item item : ft.getItems())
+			{
+				List<FuzzyTotal> list = fuzzyTotalsByItem.get( item );
+				if ( list != null && list.remove( ft ) && list.isEmpty() )
+					fuzzyTotalsByItem.remove( item );
+			}
+		}
+	}
+
+	private void applyChange(T difference)
+	{
+		if ( needsRebuild || difference == null )
+			return;
+
+		// nothing to take away from, a negative entry would only linger in the list.
+		if ( difference.getStackSize() < 0 && storageList.findPrecise( difference ) == null )
+			return;
+
+		storageList.add( difference );
+		storedTotal += difference.getStackSize();
+
+		if ( difference instanceof IAEItemStack && !fuzzyTotalsByItem.isEmpty() )
+		{
+			List<FuzzyTotal> list = fuzzyTotalsByItem.get( ((IAEItemStack) difference).getItem() );
+			if ( list != null )
+			{
+				for (FuzzyTotal ft : list)
+					ft.add( (IAEItemStack) difference );
+			}
+		}
+
+		// craftability is a flag, it can't be subtracted, so ask the crafting grid again.
+		if ( difference.isCraftable() || difference.getStackSize() == 0 )
+		{
+			T stored = storageList.findPrecise( difference );
+			if ( stored != null )
+				stored.setCraftable( isCraftable( stored ) );
+		}
+	}
+
+	private boolean isCraftable(T what)
+	{
+		if ( myChannel != StorageChannel.ITEMS )
+			return false;
+
+		ICraftingGrid cg = myGridCache.myGrid.getCache( ICraftingGrid.class );
+		return cg instanceof CraftingGridCache && ((CraftingGridCache) cg).isCraftable( (IAEItemStack) what );
 	}
 
 	final static public LinkedList depth = new LinkedList();
@@ -74,42 +217,47 @@ public class NetworkMonitor<T extends IAEStack<T>> extends MEMonitorHandler<T>
 	
 	protected void postChange(boolean Add, Iterable<T> changes, BaseActionSource src)
 	{
+		// changes coming back around through a storage bus or interface are already counted.
 		if ( depth.contains( this ) )
 			return;
 
 		depth.push( this );
 
+		for (T changedItem : changes)
+		{
+			if ( changedItem == null )
+				continue;
+
+			if ( Add )
+				applyChange( changedItem );
+			else
+			{
+				T difference = changedItem.copy();
+				difference.setStackSize( -changedItem.getStackSize() );
+				applyChange( difference );
+			}
+		}
+
 		sendEvent = true;
 		notifyListenersOfChange( changes, src );
 
-		IItemList<T> myStorageList = getStorageList();
-
 		for (T changedItem : changes)
 		{
-			T difference = changedItem;
-
-			if ( !Add && changedItem != null )
-				(difference = changedItem.copy()).setStackSize( -changedItem.getStackSize() );
-
-			if ( myGridCache.interestManager.containsKey( changedItem ) )
+			if ( changedItem != null && myGridCache.interestManager.containsKey( changedItem ) )
 			{
-				Collection<ItemWatcher> list = myGridCache.interestManager.get( changedItem );
-				if ( !list.isEmpty() )
-				{
-					IAEStack fullStack = myStorageList.findPrecise( changedItem );
-					if ( fullStack == null )
-					{
-						fullStack = changedItem.copy();
-						fullStack.setStackSize( 0 );
-					}
+				T difference = changedItem;
 
-					myGridCache.interestManager.enableTransactions();
+				if ( !Add )
+					(difference = changedItem.copy()).setStackSize( -changedItem.getStackSize() );
 
-					for (ItemWatcher iw : list)
-						iw.getHost().onStackChange( myStorageList, fullStack, difference, src, getChannel() );
-
-					myGridCache.interestManager.disableTransactions();
+				IItemList<T> fromSource = watchedChanges.get( src );
+				if ( fromSource == null )
+				{
+					fromSource = spareLists.isEmpty() ? (IItemList<T>) myChannel.createList() : spareLists.remove( spareLists.size() - 1 );
+					watchedChanges.put( src, fromSource );
 				}
+
+				fromSource.add( difference );
 			}
 		}
 
@@ -120,6 +268,9 @@ public class NetworkMonitor<T extends IAEStack<T>> extends MEMonitorHandler<T>
 
 	public void onTick()
 	{
+		if ( !watchedChanges.isEmpty() )
+			postWatchedChanges();
+
 		if ( sendEvent )
 		{
 			sendEvent = false;
@@ -127,6 +278,58 @@ public class NetworkMonitor<T extends IAEStack<T>> extends MEMonitorHandler<T>
 		}
 	}
 
+	/**
+	 * tells the stack watchers about the changes of the last tick, one call per watcher, source and item with the
+	 * changes to that item added up.
+	 */
+	private void postWatchedChanges()
+	{
+		// watchers reacting to a change may cause more, those wait for the next tick.
+		Map<BaseActionSource, IItemList<T>> bySource = watchedChanges;
+		watchedChanges = spareWatchedChanges;
+
+		IItemList<T> myStorageList = getStorageList();
+		myGridCache.interestManager.enableTransactions();
+
+		try
+		{
+			for (Entry<BaseActionSource, IItemList<T>> changes : bySource.entrySet())
+			{
+				BaseActionSource src = changes.getKey();
+
+				for (T difference : changes.getValue())
+				{
+					Collection<ItemWatcher> list = myGridCache.interestManager.get( difference );
+					if ( list.isEmpty() )
+						continue;
+
+					IAEStack fullStack = myStorageList.findPrecise( difference );
+					if ( fullStack == null )
+					{
+						fullStack = difference.copy();
+						fullStack.setStackSize( 0 );
+					}
+
+					for (ItemWatcher iw : list)
+						iw.getHost().onStackChange( myStorageList, fullStack, difference, src, getChannel() );
+				}
+			}
+		}
+		finally
+		{
+			myGridCache.interestManager.disableTransactions();
+
+			for (IItemList<T> changes : bySource.values())
+			{
+				changes.resetStatus();
+				spareLists.add( changes );
+			}
+
+			bySource.clear();
+			spareWatchedChanges = bySource;
+		}
+	}
+
 	@Override
 	protected IMEInventoryHandler getHandler()
 	{
@@ -18,11 +18,14 @@
 
 package appeng.me.cache;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import net.minecraftforge.common.util.ForgeDirection;
@@ -57,10 +60,23 @@ import appeng.util.Platform;
 public class PathGridCache implements IPathingGrid
 {
 
+	/**
+	 * topology changes up to this size are patched into the existing routes instead of re-pathing the network.
+	 */
+	private static final int MAX_PATCHED_CHANGES = 64;
+
 	boolean recalculateControllerNextTick = true;
 	boolean updateNetwork = true;
 	boolean booting = false;
 
+	// routes and channel paths of the last complete pass with a controller, patched by small topology changes.
+	final Map<IPathItem, IPathItem> routes = new HashMap<IPathItem, IPathItem>();
+	final Map<IGridNode, IPathItem[]> channelPaths = new HashMap<IGridNode, IPathItem[]>();
+	final Set<IGridNode> sharedChannels = new HashSet<IGridNode>();
+	boolean routesValid = false;
+	boolean needsFullPath = true;
+	int pendingChanges = 0;
+
 	final LinkedList<PathSegment> active = new LinkedList<PathSegment>();
 
 	ControllerState controllerState = ControllerState.NO_CONTROLLER;
@@ -94,6 +110,12 @@ public class PathGridCache implements IPathingGrid
 			recalcController();
 		}
 
+		if ( updateNetwork && canPatchRoutes() && patchRoutes() )
+		{
+			updateNetwork = false;
+			pendingChanges = 0;
+		}
+
 		if ( updateNetwork )
 		{
 			if ( !booting )
@@ -104,6 +126,15 @@ public class PathGridCache implements IPathingGrid
 			instance++;
 			channelsInUse = 0;
 
+			active.clear();
+			channelsByBlocks = 0;
+			routes.clear();
+			channelPaths.clear();
+			sharedChannels.clear();
+			routesValid = false;
+			needsFullPath = false;
+			pendingChanges = 0;
+
 			if ( !AEConfig.instance.isFeatureEnabled( AEFeature.Channels ) )
 			{
 				int used = calculateRequiredChannels();
@@ -157,6 +188,7 @@ public class PathGridCache implements IPathingGrid
 							closedList.add( gc );
 							open.add( gc );
 							gc.setControllerRoute( (GridNode) node, true );
+							recordRoute( gc, (IPathItem) node );
 							active.add( new PathSegment( this, open, semiOpen, closedList ) );
 						}
 					}
@@ -194,6 +226,7 @@ public class PathGridCache implements IPathingGrid
 				// check for achievements
 				achievementPost();
 
+				routesValid = controllerState == ControllerState.CONTROLLER_ONLINE && AEConfig.instance.isFeatureEnabled( AEFeature.Channels );
 				booting = false;
 				channelPowerUsage = channelsByBlocks / 128.0;
 				myGrid.postEvent( new MENetworkBootingStatusChange() );
@@ -269,13 +302,248 @@ public class PathGridCache implements IPathingGrid
 	@Override
 	public void repath()
 	{
-		// clean up...
-		active.clear();
-
-		channelsByBlocks = 0;
+		// picked up next tick, either patched into the current routes or as a complete re-path.
+		pendingChanges++;
 		updateNetwork = true;
 	}
 
+	public void recordRoute(IPathItem item, IPathItem parent)
+	{
+		routes.put( item, parent );
+	}
+
+	public void recordChannel(IGridNode node, List<IPathItem> path)
+	{
+		channelPaths.put( node, path.toArray( new IPathItem[path.size()] ) );
+	}
+
+	/**
+	 * the other nodes of a multiblock share the channel of the first one to be reached.
+	 */
+	public void recordSharedChannel(IGridNode node)
+	{
+		sharedChannels.add( node );
+	}
+
+	private boolean canPatchRoutes()
+	{
+		return routesValid && !needsFullPath && !booting && active.isEmpty() && pendingChanges <= MAX_PATCHED_CHANGES
+				&& controllerState == ControllerState.CONTROLLER_ONLINE && AEConfig.instance.isFeatureEnabled( AEFeature.Channels );
+	}
+
+	/**
+	 * Re-routes only what lost its way to a controller and moves the channels that went through it, everything that
+	 * still has a route keeps its channel and the network never boots.
+	 *
+	 * @return false if the change can't be patched, nothing was changed in that case and a complete re-path is needed.
+	 */
+	private boolean patchRoutes()
+	{
+		Set<IPathItem> present = new HashSet<IPathItem>();
+		for (IGridNode node : myGrid.getNodes())
+		{
+			present.add( (IPathItem) node );
+			for (IGridConnection gc : node.getConnections())
+				present.add( (IPathItem) gc );
+		}
+
+		Map<IPathItem, Boolean> anchored = new HashMap<IPathItem, Boolean>();
+		Set<IPathItem> lost = new HashSet<IPathItem>();
+		for (IPathItem pi : present)
+		{
+			if ( !isAnchored( pi, present, anchored ) )
+				lost.add( pi );
+		}
+
+		Set<IGridNode> release = new HashSet<IGridNode>();
+		for (Map.Entry<IGridNode, IPathItem[]> e : channelPaths.entrySet())
+		{
+			IGridNode node = e.getKey();
+			boolean broken = !present.contains( node ) || !node.getGridBlock().getFlags().contains( GridFlags.REQUIRE_CHANNEL );
+
+			for (IPathItem pi : e.getValue())
+				broken = broken || lost.contains( pi ) || !present.contains( pi );
+
+			if ( broken )
+			{
+				if ( present.contains( node ) && node.getGridBlock().getFlags().contains( GridFlags.MULTIBLOCK ) )
+					return false;
+
+				release.add( node );
+			}
+		}
+
+		List<IGridNode> allocate = new ArrayList<IGridNode>();
+		for (IGridNode node : requireChannels)
+		{
+			if ( sharedChannels.contains( node ) || (channelPaths.containsKey( node ) && !release.contains( node )) )
+				continue;
+
+			if ( node.getGridBlock().getFlags().contains( GridFlags.MULTIBLOCK ) )
+				return false;
+
+			allocate.add( node );
+		}
+
+		// route the lost items from the closest item that still has a route, one step at a time like a full pass.
+		List<IPathItem> open = new ArrayList<IPathItem>();
+		for (IPathItem pi : present)
+		{
+			if ( !lost.contains( pi ) )
+			{
+				for (IPathItem option : pi.getPossibleOptions())
+				{
+					if ( lost.contains( option ) )
+					{
+						open.add( pi );
+						break;
+					}
+				}
+			}
+		}
+
+		Set<IPathItem> unrouted = new HashSet<IPathItem>( lost );
+		while (!open.isEmpty() && !unrouted.isEmpty())
+		{
+			List<IPathItem> next = new ArrayList<IPathItem>();
+
+			for (IPathItem i : open)
+			{
+				for (IPathItem pi : i.getPossibleOptions())
+				{
+					if ( unrouted.remove( pi ) )
+					{
+						routes.put( pi, i );
+						next.add( pi );
+					}
+				}
+			}
+
+			open = next;
+		}
+
+		if ( !unrouted.isEmpty() )
+			return false;
+
+		Set<IPathItem> touched = new HashSet<IPathItem>();
+
+		for (IPathItem pi : lost)
+			pi.setControllerRoute( routes.get( pi ), false );
+
+		for (IGridNode node : release)
+		{
+			IPathItem[] path = channelPaths.remove( node );
+
+			for (IPathItem pi : path)
+			{
+				if ( present.contains( pi ) )
+				{
+					pi.incrementChannelCount( -1 );
+					touched.add( pi );
+				}
+			}
+
+			channelsByBlocks -= path.length;
+			channelsInUse--;
+		}
+
+		sharedChannels.retainAll( present );
+
+		for (IGridNode node : allocate)
+		{
+			List<IPathItem> path = new ArrayList<IPathItem>();
+			boolean dense = node.getGridBlock().getFlags().contains( GridFlags.COMPRESSED_CHANNEL );
+			boolean fits = true;
+
+			for (IPathItem pi = (IPathItem) node; pi != null && fits; pi = nextHop( pi ))
+			{
+				fits = pi.canSupportMoreChannels() && !(dense && pi.getFlags().contains( GridFlags.CANNOT_CARRY_COMPRESSED ));
+				path.add( pi );
+			}
+
+			if ( fits )
+			{
+				for (IPathItem pi : path)
+				{
+					pi.incrementChannelCount( 1 );
+					touched.add( pi );
+				}
+
+				channelsByBlocks += path.size();
+				channelsInUse++;
+				recordChannel( node, path );
+			}
+		}
+
+		for (IPathItem pi : touched)
+			pi.finalizeChannels();
+
+		routes.keySet().retainAll( present );
+		channelPowerUsage = channelsByBlocks / 128.0;
+		achievementPost();
+
+		return true;
+	}
+
+	private boolean isAnchored(IPathItem start, Set<IPathItem> present, Map<IPathItem, Boolean> known)
+	{
+		List<IPathItem> chain = new ArrayList<IPathItem>();
+		IPathItem pi = start;
+		Boolean result = known.get( pi );
+
+		while (result == null)
+		{
+			chain.add( pi );
+
+			if ( pi instanceof GridNode && ((GridNode) pi).getMachine() instanceof TileController )
+			{
+				result = true;
+				break;
+			}
+
+			IPathItem parent = routes.get( pi );
+			if ( parent == null || !present.contains( parent ) || !isLinked( pi, parent ) || chain.size() > present.size() )
+			{
+				result = false;
+				break;
+			}
+
+			pi = parent;
+			result = known.get( pi );
+		}
+
+		for (IPathItem c : chain)
+			known.put( c, result );
+
+		return result;
+	}
+
+	private boolean isLinked(IPathItem item, IPathItem parent)
+	{
+		if ( item instanceof GridConnection )
+			return ((GridConnection) item).a() == parent || ((GridConnection) item).b() == parent;
+
+		if ( parent instanceof GridConnection )
+			return ((GridConnection) parent).a() == item || ((GridConnection) parent).b() == item;
+
+		return false;
+	}
+
+	/**
+	 * the recorded equivalent of {@link IPathItem#getControllerRoute()}.
+	 */
+	private IPathItem nextHop(IPathItem pi)
+	{
+		if ( pi.getFlags().contains( GridFlags.CANNOT_CARRY ) )
+			return null;
+
+		IPathItem parent = routes.get( pi );
+		if ( parent != null && parent.getFlags().contains( GridFlags.CANNOT_CARRY ) )
+			return null;
+
+		return parent;
+	}
+
 	@Override
 	public void removeNode(IGridNode gridNode, IGridHost machine)
 	{
@@ -286,6 +554,7 @@ public class PathGridCache implements IPathingGrid
 		}
 
 		EnumSet<GridFlags> flags = gridNode.getGridBlock().getFlags();
+		needsFullPath |= machine instanceof TileController || flags.contains( GridFlags.MULTIBLOCK ) || flags.contains( GridFlags.CANNOT_CARRY_COMPRESSED );
 
 		if ( flags.contains( GridFlags.REQUIRE_CHANNEL ) )
 			requireChannels.remove( gridNode );
@@ -306,6 +575,7 @@ public class PathGridCache implements IPathingGrid
 		}
 
 		EnumSet<GridFlags> flags = gridNode.getGridBlock().getFlags();
+		needsFullPath |= machine instanceof TileController || flags.contains( GridFlags.MULTIBLOCK ) || flags.contains( GridFlags.CANNOT_CARRY_COMPRESSED );
 
 		if ( flags.contains( GridFlags.REQUIRE_CHANNEL ) )
 			requireChannels.add( gridNode );
@@ -360,6 +630,7 @@ public class PathGridCache implements IPathingGrid
 
 		if ( old != controllerState )
 		{
+			needsFullPath = true;
 			myGrid.postEvent( new MENetworkControllerChange() );
 		}
 	}
@@ -19,7 +19,6 @@
 package appeng.me.cache;
 
 import java.util.HashMap;
-import java.util.PriorityQueue;
 
 import net.minecraft.crash.CrashReport;
 import net.minecraft.crash.CrashReportCategory;
@@ -33,6 +32,7 @@ import appeng.api.networking.ticking.ITickManager;
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.networking.ticking.TickingRequest;
 import appeng.me.cache.helpers.TickTracker;
+import appeng.me.cache.helpers.TickWheel;
 
 public class TickManagerCache implements ITickManager
 {
@@ -50,7 +50,7 @@ public class TickManagerCache implements ITickManager
 	final HashMap<IGridNode, TickTracker> sleeping = new HashMap<IGridNode, TickTracker>();
 	final HashMap<IGridNode, TickTracker> awake = new HashMap<IGridNode, TickTracker>();
 
-	final PriorityQueue<TickTracker> upcomingTicks = new PriorityQueue<TickTracker>();
+	final TickWheel upcomingTicks = new TickWheel( currentTick + 1 );
 
 	public long getCurrentTick()
 	{
@@ -77,45 +77,39 @@ public class TickManagerCache implements ITickManager
 		try
 		{
 			currentTick++;
-			while (!upcomingTicks.isEmpty())
+			while ((tt = upcomingTicks.poll()) != null)
 			{
-				tt = upcomingTicks.peek();
 				int diff = (int) (currentTick - tt.lastTick);
-				if ( diff >= tt.current_rate )
+				TickRateModulation mod = tt.gt.tickingRequest( tt.node, diff );
+
+				switch (mod)
 				{
-					// remove tt..
-					upcomingTicks.poll();
-					TickRateModulation mod = tt.gt.tickingRequest( tt.node, diff );
-	
-					switch (mod)
-					{
-					case FASTER:
-						tt.setRate( tt.current_rate - 2 );
-						break;
-					case IDLE:
-						tt.setRate( tt.request.maxTickRate );
-						break;
-					case SAME:
-						break;
-					case SLEEP:
-						sleepDevice( tt.node );
-						break;
-					case SLOWER:
-						tt.setRate( tt.current_rate + 1 );
-						break;
-					case URGENT:
-						tt.setRate( 0 );
-						break;
-					default:
-						break;
-					}
-	
-					if ( awake.containsKey( tt.node ) )
-						addToQueue( tt );
+				case FASTER:
+					tt.setRate( tt.current_rate - 2 );
+					break;
+				case IDLE:
+					tt.setRate( tt.request.maxTickRate );
+					break;
+				case SAME:
+					break;
+				case SLEEP:
+					sleepDevice( tt.node );
+					break;
+				case SLOWER:
+					tt.setRate( tt.current_rate + 1 );
+					break;
+				case URGENT:
+					tt.setRate( 0 );
+					break;
+				default:
+					break;
 				}
-				else
-					return; // done!
+
+				if ( awake.containsKey( tt.node ) )
+					addToQueue( tt );
 			}
+
+			upcomingTicks.advance();
 		}
 		catch( Throwable t )
 		{
@@ -129,7 +123,9 @@ public class TickManagerCache implements ITickManager
 	private void addToQueue(TickTracker tt)
 	{
 		tt.lastTick = currentTick;
-		upcomingTicks.add( tt );
+
+		// a rate of 0 would come due again on the tick being processed.
+		upcomingTicks.schedule( tt, currentTick + Math.max( 1, tt.current_rate ) );
 	}
 
 	@Override
@@ -149,9 +145,8 @@ public class TickManagerCache implements ITickManager
 		tt.lastTick = tt.lastTick - tt.request.maxTickRate;
 		tt.current_rate = tt.request.minTickRate;
 
-		// prevent dupes and tick build up.
-		upcomingTicks.remove( tt );
-		upcomingTicks.add( tt );
+		// rescheduling replaces the pending tick, this prevents dupes and tick build up.
+		upcomingTicks.schedule( tt, tt.lastTick + tt.current_rate );
 
 		return true;
 	}
@@ -164,6 +159,7 @@ public class TickManagerCache implements ITickManager
 			TickTracker gt = awake.get( node );
 			awake.remove( node );
 			sleeping.put( node, gt );
+			upcomingTicks.cancel( gt );
 
 			return true;
 		}
@@ -194,7 +190,10 @@ public class TickManagerCache implements ITickManager
 		{
 			alertable.remove( gridNode );
 			sleeping.remove( gridNode );
-			awake.remove( gridNode );
+
+			TickTracker tt = awake.remove( gridNode );
+			if ( tt != null )
+				upcomingTicks.cancel( tt );
 		}
 	}
 
@@ -26,7 +26,7 @@ import appeng.api.util.DimensionalCoord;
 import appeng.me.cache.TickManagerCache;
 import appeng.parts.AEBasePart;
 
-public class TickTracker implements Comparable<TickTracker>
+public class TickTracker
 {
 
 	public final TickingRequest request;
@@ -39,6 +39,12 @@ public class TickTracker implements Comparable<TickTracker>
 	public long lastTick;
 	public int current_rate;
 
+	// position in the owning TickWheel.
+	long deadline;
+	int slot = -1;
+	TickTracker prev;
+	TickTracker next;
+
 	public TickTracker(TickingRequest req, IGridNode node, IGridTickable gt, long currentTick, TickManagerCache tickManagerCache) {
 		request = req;
 		this.gt = gt;
@@ -64,14 +70,6 @@ public class TickTracker implements Comparable<TickTracker>
 			current_rate = request.maxTickRate;
 	}
 
-	@Override
-	public int compareTo(TickTracker t)
-	{
-		int nextTick = (int) ((lastTick - host.getCurrentTick()) + current_rate);
-		int ts_nextTick = (int) ((t.lastTick - host.getCurrentTick()) + t.current_rate);
-		return nextTick - ts_nextTick;
-	}
-
 	public void addEntityCrashInfo(CrashReportCategory crashreportcategory)
 	{
 		if ( gt instanceof AEBasePart )
@@ -0,0 +1,136 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache.helpers;
+
+/**
+ * Two level timing wheel of {@link TickTracker}s, scheduling, cancelling and polling are all constant time.
+ *
+ * The near level has a slot per tick for the next 256 ticks, the far level a slot per 256 ticks. Whenever the wheel
+ * enters a new block of 256 ticks the matching far slot is spread over the near level. Trackers further out than the
+ * far level can hold wait in its last slot and are placed again when it comes up.
+ *
+ * Each slot is an intrusive linked list through the trackers, so a tracker can only be in one wheel at a time.
+ */
+public class TickWheel
+{
+
+	private static final int BITS = 8;
+	private static final int SIZE = 1 << BITS;
+	private static final int MASK = SIZE - 1;
+
+	// near slots first, then far slots.
+	private final TickTracker[] heads = new TickTracker[SIZE * 2];
+
+	// the tick being processed, or the next one to be between ticks.
+	private long time;
+
+	public TickWheel(long firstTick)
+	{
+		time = firstTick;
+	}
+
+	/**
+	 * (re)schedules the tracker, ticks that already passed are moved to the current tick.
+	 */
+	public void schedule(TickTracker tt, long tick)
+	{
+		cancel( tt );
+
+		if ( tick < time )
+			tick = time;
+
+		tt.deadline = tick;
+
+		if ( tick - time < SIZE )
+			link( tt, (int) (tick & MASK) );
+		else
+			link( tt, SIZE + (int) (Math.min( tick >> BITS, (time >> BITS) + MASK ) & MASK) );
+	}
+
+	public void cancel(TickTracker tt)
+	{
+		if ( tt.slot < 0 )
+			return;
+
+		if ( tt.prev == null )
+			heads[tt.slot] = tt.next;
+		else
+			tt.prev.next = tt.next;
+
+		if ( tt.next != null )
+			tt.next.prev = tt.prev;
+
+		tt.prev = tt.next = null;
+		tt.slot = -1;
+	}
+
+	/**
+	 * @return the next tracker due on the current tick, or null once there are none left.
+	 */
+	public TickTracker poll()
+	{
+		TickTracker tt = heads[(int) (time & MASK)];
+
+		if ( tt != null )
+			cancel( tt );
+
+		return tt;
+	}
+
+	/**
+	 * moves on to the next tick, call once every tracker due on the current one was polled.
+	 */
+	public void advance()
+	{
+		time++;
+
+		if ( (time & MASK) == 0 )
+		{
+			int slot = SIZE + (int) ((time >> BITS) & MASK);
+			TickTracker tt = heads[slot];
+			heads[slot] = null;
+
+			while (tt != null)
+			{
+				TickTracker next = tt.next;
+
+				tt.prev = tt.next = null;
+				tt.slot = -1;
+				schedule( tt, tt.deadline );
+
+				tt = next;
+			}
+		}
+	}
+
+	private void link(TickTracker tt, int slot)
+	{
+		TickTracker head = heads[slot];
+
+		tt.slot = slot;
+		tt.prev = null;
+		tt.next = head;
+
+		if ( head != null )
+			head.prev = tt;
+
+		heads[slot] = tt;
+	}
+
+}
@@ -102,7 +102,7 @@ public class GenericInterestManager<T>
 	{
 		if ( transactions != null )
 		{
-			transactions.add( new SavedTransactions( true, stack, iw ) );
+			transactions.add( new SavedTransactions( false, stack, iw ) );
 			return true;
 		}
 		else
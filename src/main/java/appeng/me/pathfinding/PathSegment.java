@@ -18,6 +18,7 @@
 
 package appeng.me.pathfinding;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -63,6 +64,7 @@ public class PathSegment
 				if ( !closed.contains( pi ) )
 				{
 					pi.setControllerRoute( i, true );
+					pgc.recordRoute( pi, i );
 
 					if ( flags.contains( GridFlags.REQUIRE_CHANNEL ) )
 					{
@@ -91,6 +93,7 @@ public class PathSegment
 						{
 							pi.incrementChannelCount( 1 ); // give a channel.
 							semiOpen.remove( pi );
+							pgc.recordSharedChannel( (IGridNode) pi );
 						}
 					}
 
@@ -114,15 +117,19 @@ public class PathSegment
 			pi = pi.getControllerRoute();
 		}
 
+		List<IPathItem> path = new ArrayList<IPathItem>();
+
 		pi = start;
 		while (pi != null)
 		{
 			pgc.channelsByBlocks++;
 			pi.incrementChannelCount( 1 );
+			path.add( pi );
 			pi = pi.getControllerRoute();
 		}
 
 		pgc.channelsInUse++;
+		pgc.recordChannel( (IGridNode) start, path );
 		return true;
 	}
 
@@ -137,15 +144,19 @@ public class PathSegment
 			pi = pi.getControllerRoute();
 		}
 
+		List<IPathItem> path = new ArrayList<IPathItem>();
+
 		pi = start;
 		while (pi != null)
 		{
 			pgc.channelsByBlocks++;
 			pi.incrementChannelCount( 1 );
+			path.add( pi );
 			pi = pi.getControllerRoute();
 		}
 
 		pgc.channelsInUse++;
+		pgc.recordChannel( (IGridNode) start, path );
 		return true;
 	}
 
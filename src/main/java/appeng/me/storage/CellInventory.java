@@ -18,12 +18,17 @@
 
 package appeng.me.storage;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraftforge.oredict.OreDictionary;
 import appeng.api.AEApi;
@@ -39,6 +44,7 @@ import appeng.api.storage.ISaveProvider;
 import appeng.api.storage.StorageChannel;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AELog;
 import appeng.util.Platform;
 import appeng.util.item.AEItemStack;
 
@@ -53,6 +59,7 @@ public class CellInventory implements ICellInventory
 	static final String ITEM_PRE_FORMATTED_SLOT = "PF#";
 	static final String ITEM_PRE_FORMATTED_NAME = "PN";
 	static final String ITEM_PRE_FORMATTED_FUZZY = "FP";
+	static final String ITEM_PACKED = "ci";
 
 	static protected String[] ITEM_SLOT_ARR;
 	static protected String[] ITEM_SLOT_COUNT_ARR;
@@ -63,6 +70,19 @@ public class CellInventory implements ICellInventory
 	protected int storedItemCount = 0;
 	protected IItemList<IAEItemStack> cellItems;
 
+	// packed cell contents, and where each stack's record sits so counts can be patched in place.
+	private byte[] packedItems;
+	private final Map<IAEItemStack, Integer> packedOffsets = new HashMap<IAEItemStack, Integer>();
+	private int legacySlots = 0;
+
+	// the packed contents could not be read, the cell is left untouched instead of being written back empty.
+	private boolean unreadable = false;
+
+	// write-behind state, see flush().
+	private static final Set<CellInventory> dirtyCells = new LinkedHashSet<CellInventory>();
+	private final Set<IAEItemStack> changedCounts = new HashSet<IAEItemStack>();
+	private boolean layoutChanged = false;
+
 	protected ItemStack i;
 	protected IStorageCell CellType;
 
@@ -80,7 +100,28 @@ public class CellInventory implements ICellInventory
 
 		cellItems.resetStatus(); // clears totals and stuff.
 
+		if ( tagCompound.hasKey( ITEM_PACKED ) )
+		{
+			packedItems = tagCompound.getByteArray( ITEM_PACKED );
+
+			try
+			{
+				CellItemCodec.decode( packedItems, cellItems, packedOffsets );
+			}
+			catch (IOException e)
+			{
+				AELog.severe( "Unable to read the contents of a storage cell, it will not accept or provide items: " + e.getMessage() );
+
+				cellItems.resetStatus();
+				packedOffsets.clear();
+				unreadable = true;
+			}
+
+			return;
+		}
+
 		int types = (int) getStoredItemTypes();
+		legacySlots = types;
 
 		for (int x = 0; x < types; x++)
 		{
@@ -99,75 +140,166 @@ public class CellInventory implements ICellInventory
 		// cellItems.clean();
 	}
 
-	void saveChanges()
+	/**
+	 * records a change to the stack size of a type that is already stored, written on the next flush.
+	 */
+	private void markCountChanged(IAEItemStack stored)
 	{
-		// cellItems.clean();
-		int itemCount = 0;
+		if ( stored.getStackSize() <= 0 )
+		{
+			markLayoutChanged();
+			return;
+		}
+
+		if ( container == null )
+		{
+			changedCounts.add( stored );
+			flush();
+			return;
+		}
+
+		changedCounts.add( stored );
+		dirtyCells.add( this );
+	}
+
+	/**
+	 * records that a type was added or removed, the whole cell is encoded again on the next flush.
+	 */
+	private void markLayoutChanged()
+	{
+		if ( container == null )
+		{
+			saveChanges();
+			return;
+		}
 
-		// add new pretty stuff...
-		int x = 0;
+		// capacity checks need the type count right away, even though the tag is written later.
+		short types = 0;
 		for (IAEItemStack v : cellItems)
+			types++;
+		storedItems = types;
+
+		layoutChanged = true;
+		dirtyCells.add( this );
+	}
+
+	/**
+	 * writes any pending changes to the cell's NBT and tells the container once.
+	 */
+	void flush()
+	{
+		if ( layoutChanged )
 		{
-			itemCount += v.getStackSize();
+			saveChanges();
+			return;
+		}
 
-			NBTBase c = tagCompound.getTag( ITEM_SLOT_ARR[x] );
-			if ( c instanceof NBTTagCompound )
+		if ( changedCounts.isEmpty() )
+			return;
+
+		for (IAEItemStack stored : changedCounts)
+		{
+			Integer offset = packedOffsets.get( stored );
+			if ( packedItems == null || offset == null )
 			{
-				v.writeToNBT( (NBTTagCompound) c );
+				saveChanges();
+				return;
 			}
-			else
+
+			CellItemCodec.patchCount( packedItems, offset, stored.getStackSize() );
+		}
+
+		changedCounts.clear();
+
+		// the total is written with the items, so the tag never holds one without the other.
+		if ( storedItemCount == 0 )
+			tagCompound.removeTag( ITEM_COUNT_TAG );
+		else
+			tagCompound.setInteger( ITEM_COUNT_TAG, storedItemCount );
+
+		if ( container != null )
+			container.saveChanges( this );
+	}
+
+	/**
+	 * flushes every cell changed since the last call, called once per server tick.
+	 */
+	public static void flushDirtyCells()
+	{
+		while (!dirtyCells.isEmpty())
+		{
+			Iterator<CellInventory> i = dirtyCells.iterator();
+			CellInventory ci = i.next();
+			i.remove();
+			ci.flush();
+		}
+	}
+
+	/**
+	 * flushes the cells held by one container, for when it is about to save or hand out its cells.
+	 */
+	public static void flushDirtyCells(ISaveProvider container)
+	{
+		Iterator<CellInventory> i = dirtyCells.iterator();
+		while (i.hasNext())
+		{
+			CellInventory ci = i.next();
+			if ( ci.container == container )
 			{
-				NBTTagCompound g = new NBTTagCompound();
-				v.writeToNBT( g );
-				tagCompound.setTag( ITEM_SLOT_ARR[x], g );
+				i.remove();
+				ci.flush();
 			}
+		}
+	}
 
-			/*
-			 * NBTBase tagSlotCount = tagCompound.getTag( ITEM_SLOT_COUNT_ARR[x] ); if ( tagSlotCount instanceof
-			 * NBTTagInt ) ((NBTTagInt) tagSlotCount).data = (int) v.getStackSize(); else
-			 */
-			tagCompound.setInteger( ITEM_SLOT_COUNT_ARR[x], (int) v.getStackSize() );
+	void saveChanges()
+	{
+		if ( unreadable )
+			return;
 
-			x++;
-		}
+		layoutChanged = false;
+		changedCounts.clear();
 
-		// NBTBase tagType = tagCompound.getTag( ITEM_TYPE_TAG );
-		// NBTBase tagCount = tagCompound.getTag( ITEM_COUNT_TAG );
-		short oldStoredItems = storedItems;
+		// cellItems.clean();
+		int itemCount = 0;
+
+		for (IAEItemStack v : cellItems)
+			itemCount += v.getStackSize();
 
-		/*
-		 * if ( tagType instanceof NBTTagShort ) ((NBTTagShort) tagType).data = storedItems = (short) cellItems.size();
-		 * else
-		 */
 		if ( this.cellItems.isEmpty() )
 		{
+			this.storedItems = 0;
+			this.packedItems = null;
+			this.packedOffsets.clear();
 			this.tagCompound.removeTag( ITEM_TYPE_TAG );
+			this.tagCompound.removeTag( ITEM_PACKED );
 		}
 		else
 		{
 			this.storedItems = ( short ) this.cellItems.size();
 			this.tagCompound.setShort( ITEM_TYPE_TAG, this.storedItems );
+
+			this.packedItems = CellItemCodec.encode( this.cellItems, this.packedOffsets );
+			this.tagCompound.setByteArray( ITEM_PACKED, this.packedItems );
 		}
 
-		/*
-		 * if ( tagCount instanceof NBTTagInt ) ((NBTTagInt) tagCount).data = storedItemCount = itemCount; else
-		 */
+		this.storedItemCount = itemCount;
 		if ( itemCount == 0 )
 		{
 			this.tagCompound.removeTag( ITEM_COUNT_TAG );
 		}
 		else
 		{
-			this.storedItemCount = itemCount;
 			this.tagCompound.setInteger( ITEM_COUNT_TAG, itemCount );
 		}
 
-		// clean any old crusty stuff...
-		for (; x < oldStoredItems && x < MAX_ITEM_TYPES; x++)
+		// clean any old crusty stuff, cells written in the per slot layout are converted on their first change.
+		for (int x = 0; x < legacySlots && x < MAX_ITEM_TYPES; x++)
 		{
 			tagCompound.removeTag( ITEM_SLOT_ARR[x] );
 			tagCompound.removeTag( ITEM_SLOT_COUNT_ARR[x] );
 		}
+		legacySlots = 0;
 
 		if ( container != null )
 			container.saveChanges( this );
@@ -335,9 +467,12 @@ public class CellInventory implements ICellInventory
 		return storedItemCount;
 	}
 
+	/**
+	 * the tag is written on the next flush, together with the items.
+	 */
 	private void updateItemCount(long delta)
 	{
-		tagCompound.setInteger( ITEM_COUNT_TAG, storedItemCount = (int) (storedItemCount + delta) );
+		storedItemCount = (int) (storedItemCount + delta);
 	}
 
 	@Override
@@ -398,6 +533,10 @@ public class CellInventory implements ICellInventory
 		if ( isBlackListed( input ) || CellType.isBlackListed( i, input ) )
 			return input;
 
+		getCellItems();
+		if ( unreadable )
+			return input;
+
 		ItemStack sharedItemStack = input.getItemStack();
 
 		if ( CellInventory.isStorageCell( sharedItemStack ) )
@@ -422,7 +561,7 @@ public class CellInventory implements ICellInventory
 				{
 					l.setStackSize( l.getStackSize() + remainingItemSlots );
 					updateItemCount( remainingItemSlots );
-					saveChanges();
+					markCountChanged( l );
 				}
 				return r;
 			}
@@ -432,7 +571,7 @@ public class CellInventory implements ICellInventory
 				{
 					l.setStackSize( l.getStackSize() + input.getStackSize() );
 					updateItemCount( input.getStackSize() );
-					saveChanges();
+					markCountChanged( l );
 				}
 				return null;
 			}
@@ -455,7 +594,7 @@ public class CellInventory implements ICellInventory
 						cellItems.add( AEItemStack.create( toWrite ) );
 						updateItemCount( toWrite.stackSize );
 
-						saveChanges();
+						markLayoutChanged();
 					}
 					return AEItemStack.create( toReturn );
 				}
@@ -464,7 +603,7 @@ public class CellInventory implements ICellInventory
 				{
 					updateItemCount( input.getStackSize() );
 					cellItems.add( input );
-					saveChanges();
+					markLayoutChanged();
 				}
 
 				return null;
@@ -497,7 +636,7 @@ public class CellInventory implements ICellInventory
 				{
 					updateItemCount( -l.getStackSize() );
 					l.setStackSize( 0 );
-					saveChanges();
+					markLayoutChanged();
 				}
 			}
 			else
@@ -507,7 +646,7 @@ public class CellInventory implements ICellInventory
 				{
 					l.setStackSize( l.getStackSize() - size );
 					updateItemCount( -size );
-					saveChanges();
+					markCountChanged( l );
 				}
 			}
 		}
@@ -105,9 +105,9 @@ public class CellInventoryHandler extends MEInventoryHandler<IAEItemStack> imple
 			if ( !priorityList.isEmpty() )
 			{
 				if ( hasFuzzy )
-					myPartitionList = new FuzzyPriorityList<IAEItemStack>( priorityList, fzMode );
+					setPartitionList( new FuzzyPriorityList<IAEItemStack>( priorityList, fzMode ) );
 				else
-					myPartitionList = new PrecisePriorityList<IAEItemStack>( priorityList );
+					setPartitionList( new PrecisePriorityList<IAEItemStack>( priorityList ) );
 			}
 		}
 	}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.item.AEItemStack;
+
+
+/**
+ * Packs the contents of a storage cell into a single byte array instead of one compound per type.
+ *
+ * Layout: version byte, a dictionary of the distinct tag compounds ( short count, then length prefixed compounds ),
+ * then a short type count followed by fixed size records of item id, damage, dictionary index ( -1 for none ) and
+ * count. Records are fixed size so a count can be patched without re-encoding the cell.
+ *
+ * Version 1 stored damage as a short and the count as an int, it is still read but never patched, the next change
+ * writes the cell in the current layout.
+ */
+final class CellItemCodec
+{
+
+	static final byte VERSION = 2;
+	static final int RECORD_SIZE = 16;
+	static final int COUNT_OFFSET = 8;
+
+	private static final byte VERSION_NARROW = 1;
+	private static final int NARROW_RECORD_SIZE = 10;
+
+	private CellItemCodec() {
+	}
+
+	/**
+	 * @param offsets receives the byte offset of each record, keyed by the stack that was written.
+	 */
+	static byte[] encode(Iterable<IAEItemStack> items, Map<IAEItemStack, Integer> offsets)
+	{
+		List<IAEItemStack> types = new ArrayList<IAEItemStack>();
+		List<NBTTagCompound> tags = new ArrayList<NBTTagCompound>();
+		Map<Object, Integer> tagIndex = new IdentityHashMap<Object, Integer>();
+
+		for (IAEItemStack is : items)
+		{
+			types.add( is );
+
+			Object tag = is.getTagCompound();
+			if ( tag != null && !tagIndex.containsKey( tag ) )
+			{
+				tagIndex.put( tag, tags.size() );
+				tags.add( (NBTTagCompound) tag );
+			}
+		}
+
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream( 8 + types.size() * RECORD_SIZE );
+			DataOutputStream data = new DataOutputStream( bytes );
+
+			data.writeByte( VERSION );
+
+			data.writeShort( tags.size() );
+			for (NBTTagCompound tag : tags)
+			{
+				ByteArrayOutputStream tagBytes = new ByteArrayOutputStream();
+				CompressedStreamTools.write( tag, new DataOutputStream( tagBytes ) );
+
+				data.writeInt( tagBytes.size() );
+				tagBytes.writeTo( data );
+			}
+
+			data.writeShort( types.size() );
+
+			offsets.clear();
+			for (IAEItemStack is : types)
+			{
+				Object tag = is.getTagCompound();
+
+				offsets.put( is, data.size() );
+				data.writeShort( Item.getIdFromItem( is.getItem() ) );
+				data.writeInt( is.getItemDamage() );
+				data.writeShort( tag == null ? -1 : tagIndex.get( tag ) );
+				data.writeLong( is.getStackSize() );
+			}
+
+			data.flush();
+			return bytes.toByteArray();
+		}
+		catch (IOException e)
+		{
+			// ByteArrayOutputStream doesn't throw.
+			throw new RuntimeException( e );
+		}
+	}
+
+	/**
+	 * @throws IOException if the data is damaged or from an unknown version, the caller must not write over it.
+	 */
+	static void decode(byte[] packed, IItemList<IAEItemStack> out, Map<IAEItemStack, Integer> offsets) throws IOException
+	{
+		offsets.clear();
+
+		DataInputStream data = new DataInputStream( new ByteArrayInputStream( packed ) );
+
+		byte version = data.readByte();
+		if ( version != VERSION && version != VERSION_NARROW )
+			throw new IOException( "Unknown storage cell format version " + version + "." );
+
+		boolean narrow = version == VERSION_NARROW;
+
+		NBTTagCompound[] tags = new NBTTagCompound[data.readShort()];
+		for (int x = 0; x < tags.length; x++)
+		{
+			byte[] tagBytes = new byte[data.readInt()];
+			data.readFully( tagBytes );
+			tags[x] = CompressedStreamTools.read( new DataInputStream( new ByteArrayInputStream( tagBytes ) ) );
+		}
+
+		int types = data.readShort();
+		int offset = packed.length - data.available();
+
+		for (int x = 0; x < types; x++, offset += narrow ? NARROW_RECORD_SIZE : RECORD_SIZE)
+		{
+			Item item = Item.getItemById( data.readShort() );
+			int damage = narrow ? data.readShort() : data.readInt();
+			int tag = data.readShort();
+			long count = narrow ? data.readInt() : data.readLong();
+
+			if ( item == null || count <= 0 )
+				continue;
+
+			ItemStack t = new ItemStack( item, 1, damage );
+			if ( tag >= 0 )
+				t.setTagCompound( tags[tag] );
+
+			IAEItemStack ais = AEItemStack.create( t );
+			ais.setStackSize( count );
+			out.add( ais );
+
+			if ( !narrow )
+				offsets.put( out.findPrecise( ais ), offset );
+		}
+	}
+
+	static void patchCount(byte[] packed, int offset, long count)
+	{
+		int pos = offset + COUNT_OFFSET;
+
+		for (int x = 7; x >= 0; x--, count >>>= 8)
+			packed[pos + x] = (byte) count;
+	}
+
+}
@@ -43,6 +43,12 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
 	public AccessRestriction myAccess = AccessRestriction.READ_WRITE;
 	public IPartitionList<T> myPartitionList = new DefaultPriorityList<T>();
 
+	/**
+	 * the network handler currently routing to this one, told when the partition changes so only its cached routes go
+	 * stale.
+	 */
+	NetworkInventoryHandler<T> routes;
+
 	public MEInventoryHandler(IMEInventory<T> i, StorageChannel channel) {
 		this.channel = channel;
 
@@ -126,6 +132,50 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
 		return internal.getSlot();
 	}
 
+	public void setPartitionList(IPartitionList<T> list)
+	{
+		myPartitionList = list;
+
+		if ( routes != null )
+			routes.partitionChanged();
+	}
+
+	/**
+	 * @return true if the partition settings of this handler, or of a handler it wraps, alone reject the input.
+	 */
+	public boolean isPartitionExcluded(T input)
+	{
+		if ( myWhitelist == IncludeExclude.BLACKLIST )
+		{
+			if ( myPartitionList.isListed( input ) )
+				return true;
+		}
+		else if ( !myPartitionList.isEmpty() && !myPartitionList.isListed( input ) )
+			return true;
+
+		if ( internal instanceof MEInventoryHandler )
+			return ((MEInventoryHandler<T>) internal).isPartitionExcluded( input );
+
+		return false;
+	}
+
+	/**
+	 * @return true if the partition settings of this handler, or of a handler it wraps, prioritize the input.
+	 */
+	public boolean isPartitionPrioritized(T input)
+	{
+		if ( myWhitelist != IncludeExclude.WHITELIST )
+			return false;
+
+		if ( myPartitionList.isListed( input ) )
+			return true;
+
+		if ( internal instanceof MEInventoryHandler )
+			return ((MEInventoryHandler<T>) internal).isPartitionPrioritized( input );
+
+		return false;
+	}
+
 	public IMEInventory<T> getInternal()
 	{
 		return internal;
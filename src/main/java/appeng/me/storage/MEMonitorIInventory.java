@@ -21,6 +21,7 @@ package appeng.me.storage;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -66,6 +67,21 @@ public class MEMonitorIInventory implements IMEMonitor<IAEItemStack>
 		final IAEItemStack aeStack;
 	}
 
+	/**
+	 * slots compared per call of {@link #onTick()}, bigger inventories are scanned over several ticks.
+	 */
+	static final int SLOTS_PER_TICK = 512;
+
+	/**
+	 * passes without changes that keep the current rate before the scan starts to back off.
+	 */
+	static final int SAME_RATE_PASSES = 2;
+
+	/**
+	 * passes without changes before the scan drops straight to its slowest rate.
+	 */
+	static final int IDLE_PASSES = 8;
+
 	final InventoryAdaptor adaptor;
 
 	private final NavigableMap<Integer, CachedItemStack> memory;
@@ -75,6 +91,12 @@ public class MEMonitorIInventory implements IMEMonitor<IAEItemStack>
 	public BaseActionSource mySource;
 	public StorageFilter mode = StorageFilter.EXTRACTABLE_ONLY;
 
+	// the pass in progress, null when the next tick starts a new one.
+	private Iterator<ItemSlot> scan;
+	private int scanHigh;
+	private int idlePasses;
+	private boolean passChanged;
+
 	@Override
 	public void addListener(IMEMonitorHandlerReceiver<IAEItemStack> l, Object verificationToken)
 	{
@@ -101,9 +123,10 @@ public class MEMonitorIInventory implements IMEMonitor<IAEItemStack>
 		if ( type == Actionable.SIMULATE )
 			out = adaptor.simulateAdd( input.getItemStack() );
 		else
+		{
 			out = adaptor.addItems( input.getItemStack() );
-
-		onTick();
+			scanAll();
+		}
 
 		if ( out == null )
 			return null;
@@ -176,102 +199,154 @@ public class MEMonitorIInventory implements IMEMonitor<IAEItemStack>
 		IAEItemStack o = request.copy();
 		o.setStackSize( out.stackSize );
 
-		onTick();
+		if ( type == Actionable.MODULATE )
+			scanAll();
 
 		return o;
 	}
 
+	/**
+	 * compares the next {@link #SLOTS_PER_TICK} slots with what was seen before and posts the differences.
+	 *
+	 * Changes ask for the fastest rate, after a few full passes without any the rate backs off, first one step per
+	 * pass and then straight to the slowest rate.
+	 */
 	public TickRateModulation onTick()
 	{
-		boolean changed = false;
+		boolean changed = scan( SLOTS_PER_TICK );
+
+		if ( changed )
+		{
+			idlePasses = 0;
+			return TickRateModulation.URGENT;
+		}
+
+		// still part way through the inventory.
+		if ( scan != null )
+			return TickRateModulation.SAME;
+
+		if ( passChanged )
+			idlePasses = 0;
+		else
+			idlePasses++;
+
+		if ( idlePasses <= SAME_RATE_PASSES )
+			return TickRateModulation.SAME;
+
+		if ( idlePasses < IDLE_PASSES )
+			return TickRateModulation.SLOWER;
 
-		LinkedList<IAEItemStack> changes = new LinkedList<IAEItemStack>();
+		return TickRateModulation.IDLE;
+	}
+
+	/**
+	 * finishes the pass in progress or runs a complete one, for when the inventory is known to have changed.
+	 */
+	public void scanAll()
+	{
+		scan = null;
+		scan( Integer.MAX_VALUE );
+	}
 
-		int high = 0;
-		list.resetStatus();
-		for (ItemSlot is : adaptor)
+	private boolean scan(int slots)
+	{
+		if ( scan == null )
 		{
-			CachedItemStack old = memory.get( is.slot );
-			high = Math.max( high, is.slot );
+			scan = adaptor.iterator();
+			scanHigh = 0;
+			passChanged = false;
+		}
+
+		List<IAEItemStack> changes = null;
+
+		while (slots-- > 0 && scan.hasNext())
+		{
+			ItemSlot is = scan.next();
+			scanHigh = Math.max( scanHigh, is.slot );
 
 			ItemStack newIS = !is.isExtractable && mode == StorageFilter.EXTRACTABLE_ONLY ? null : is.getItemStack();
-			ItemStack oldIS = old == null ? null : old.itemStack;
+			CachedItemStack old = memory.get( is.slot );
 
-			if ( isDifferent( newIS, oldIS ) )
+			if ( isDifferent( newIS, old ) )
 			{
-				CachedItemStack cis = new CachedItemStack( is.getItemStack() );
+				CachedItemStack cis = new CachedItemStack( newIS );
 				memory.put( is.slot, cis );
 
 				if ( old != null && old.aeStack != null )
 				{
 					old.aeStack.setStackSize( -old.aeStack.getStackSize() );
-					changes.add( old.aeStack );
+					changes = addChange( changes, old.aeStack );
 				}
 
 				if ( cis.aeStack != null )
-				{
-					changes.add( cis.aeStack );
-					list.add( cis.aeStack );
-				}
-
-				changed = true;
+					changes = addChange( changes, cis.aeStack );
 			}
-			else
+			else if ( newIS != null && newIS.stackSize != old.itemStack.stackSize )
 			{
-				int newSize = (newIS == null ? 0 : newIS.stackSize);
-				int diff = newSize - (oldIS == null ? 0 : oldIS.stackSize);
-
-				IAEItemStack stack = (old == null || old.aeStack == null ? AEApi.instance().storage().createItemStack( newIS ) : old.aeStack.copy());
-				if ( stack != null )
-				{
-					stack.setStackSize( newSize );
-					list.add( stack );
-				}
-
-				if ( diff != 0 && stack != null )
-				{
-					CachedItemStack cis = new CachedItemStack( is.getItemStack() );
-					memory.put( is.slot, cis );
+				CachedItemStack cis = new CachedItemStack( newIS );
+				memory.put( is.slot, cis );
 
-					IAEItemStack a = stack.copy();
-					a.setStackSize( diff );
-					changes.add( a );
-					changed = true;
-				}
+				IAEItemStack a = cis.aeStack.copy();
+				a.setStackSize( newIS.stackSize - old.itemStack.stackSize );
+				changes = addChange( changes, a );
 			}
 		}
 
-		// detect dropped items; should fix non IISided Inventory Changes.
-		NavigableMap<Integer, CachedItemStack> end = memory.tailMap( high, false );
-		if ( !end.isEmpty() )
+		if ( !scan.hasNext() )
 		{
-			for (CachedItemStack cis : end.values())
+			scan = null;
+
+			// detect dropped items; should fix non IISided Inventory Changes.
+			NavigableMap<Integer, CachedItemStack> end = memory.tailMap( scanHigh, false );
+			if ( !end.isEmpty() )
 			{
-				if ( cis != null && cis.aeStack != null )
+				for (CachedItemStack cis : end.values())
 				{
-					IAEItemStack a = cis.aeStack.copy();
-					a.setStackSize( -a.getStackSize() );
-					changes.add( a );
-					changed = true;
+					if ( cis != null && cis.aeStack != null )
+					{
+						IAEItemStack a = cis.aeStack.copy();
+						a.setStackSize( -a.getStackSize() );
+						changes = addChange( changes, a );
+					}
 				}
+				end.clear();
 			}
-			end.clear();
 		}
 
-		if ( !changes.isEmpty() )
-			postDifference( changes );
+		if ( changes == null )
+			return false;
 
-		return changed ? TickRateModulation.URGENT : TickRateModulation.SLOWER;
+		passChanged = true;
+		postDifference( changes );
+		return true;
 	}
 
-	private boolean isDifferent(ItemStack a, ItemStack b)
+	private List<IAEItemStack> addChange(List<IAEItemStack> changes, IAEItemStack a)
 	{
-		if ( a == b && b == null )
-			return false;
+		if ( changes == null )
+			changes = new LinkedList<IAEItemStack>();
+
+		changes.add( a );
+		list.add( a );
+		return changes;
+	}
+
+	/**
+	 * cheap checks first, item and damage are plain fields; only stacks that carry a tag need the precise comparison.
+	 */
+	private boolean isDifferent(ItemStack a, CachedItemStack old)
+	{
+		ItemStack b = old == null ? null : old.itemStack;
 
-		if ( (a == null && b != null) || (a != null && b == null) )
+		if ( a == null || b == null )
+			return a != b;
+
+		if ( a.getItem() != b.getItem() || a.getItemDamage() != b.getItemDamage() )
 			return true;
 
+		if ( a.getTagCompound() == null && b.getTagCompound() == null )
+			return false;
+
 		return !Platform.isSameItemPrecise( a, b );
 	}
 
@@ -19,10 +19,11 @@
 package appeng.me.storage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
@@ -61,6 +62,81 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 	// final TreeMultimap<Integer, IMEInventoryHandler<T>> priorityInventory;
 	private final NavigableMap<Integer, List<IMEInventoryHandler<T>>> priorityInventory;
 
+	/**
+	 * flat routing table compiled from priorityInventory, the handler is rebuilt on every MENetworkCellArrayUpdate so
+	 * this is only ever compiled once per cell array.
+	 */
+	private IMEInventoryHandler<T>[][] firstPass;
+	private IMEInventoryHandler<T>[][] secondPass;
+	private IMEInventoryHandler<T>[] allHandlers;
+	private IMEInventoryHandler<T>[] extractOrder;
+
+	private static final int MAX_CACHED_ROUTES = 1024;
+
+	/**
+	 * per item view of the routing table with every handler removed whose partition can never accept it, only used
+	 * when at least one handler can be partitioned.
+	 */
+	private class Route
+	{
+
+		final IMEInventoryHandler<T>[][] firstPass;
+		final boolean[][] prioritized;
+		final IMEInventoryHandler<T>[][] secondPass;
+
+		Route(T input)
+		{
+			int tiers = NetworkInventoryHandler.this.firstPass.length;
+
+			firstPass = new IMEInventoryHandler[tiers][];
+			prioritized = new boolean[tiers][];
+			secondPass = new IMEInventoryHandler[tiers][];
+
+			for (int tier = 0; tier < tiers; tier++)
+			{
+				firstPass[tier] = filterPartition( NetworkInventoryHandler.this.firstPass[tier], input );
+				secondPass[tier] = filterPartition( NetworkInventoryHandler.this.secondPass[tier], input );
+
+				prioritized[tier] = new boolean[firstPass[tier].length];
+				for (int x = 0; x < firstPass[tier].length; x++)
+				{
+					IMEInventoryHandler<T> inv = firstPass[tier][x];
+					prioritized[tier][x] = inv instanceof MEInventoryHandler && ((MEInventoryHandler<T>) inv).isPartitionPrioritized( input );
+				}
+			}
+		}
+
+		private IMEInventoryHandler<T>[] filterPartition(IMEInventoryHandler<T>[] invList, T input)
+		{
+			List<IMEInventoryHandler<T>> valid = new ArrayList<IMEInventoryHandler<T>>( invList.length );
+			for (IMEInventoryHandler<T> inv : invList)
+				if ( !(inv instanceof MEInventoryHandler) || !((MEInventoryHandler<T>) inv).isPartitionExcluded( input ) )
+					valid.add( inv );
+
+			return valid.toArray( new IMEInventoryHandler[valid.size()] );
+		}
+	}
+
+	private final Map<T, Route> routeCache = new LinkedHashMap<T, Route>( 16, 0.75f, true ) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<T, Route> eldest)
+		{
+			return size() > MAX_CACHED_ROUTES;
+		}
+
+	};
+
+	private boolean partitioned = false;
+	private int routeVersion = 0;
+
+	/**
+	 * bumped when a handler in the table gets a new partition list, the cached routes are dropped on the next lookup.
+	 */
+	private volatile int partitionVersion = 0;
+
 	public NetworkInventoryHandler(StorageChannel chan, SecurityCache security) {
 		myChannel = chan;
 		this.security = security;
@@ -75,39 +151,165 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 			priorityInventory.put( priority, list = new ArrayList<IMEInventoryHandler<T>>() );
 
 		list.add( h );
+		allHandlers = null;
+	}
+
+	private void compileRoutes()
+	{
+		int tiers = priorityInventory.size();
+		int total = 0;
+
+		firstPass = new IMEInventoryHandler[tiers][];
+		secondPass = new IMEInventoryHandler[tiers][];
+
+		int tier = 0;
+		for (List<IMEInventoryHandler<T>> invList : priorityInventory.values())
+		{
+			firstPass[tier] = filterPass( invList, 1 );
+			secondPass[tier] = filterPass( invList, 2 );
+			total += invList.size();
+			tier++;
+		}
+
+		IMEInventoryHandler<T>[] all = new IMEInventoryHandler[total];
+		extractOrder = new IMEInventoryHandler[total];
+
+		int x = 0;
+		for (List<IMEInventoryHandler<T>> invList : priorityInventory.values())
+			for (IMEInventoryHandler<T> inv : invList)
+				all[x++] = inv;
+
+		x = 0;
+		for (List<IMEInventoryHandler<T>> invList : priorityInventory.descendingMap().values())
+			for (IMEInventoryHandler<T> inv : invList)
+				extractOrder[x++] = inv;
+
+		partitioned = false;
+		for (IMEInventoryHandler<T> inv : all)
+		{
+			partitioned |= inv instanceof MEInventoryHandler;
+
+			for (IMEInventoryHandler<T> h = inv; h instanceof MEInventoryHandler; h = ((MEInventoryHandler<T>) h).internal)
+				((MEInventoryHandler<T>) h).routes = this;
+		}
+
+		routeCache.clear();
+		routeVersion = partitionVersion;
+
+		allHandlers = all;
+	}
+
+	private Route getRoute(T input)
+	{
+		if ( routeVersion != partitionVersion )
+		{
+			routeCache.clear();
+			routeVersion = partitionVersion;
+		}
+
+		Route r = routeCache.get( input );
+		if ( r == null )
+		{
+			r = new Route( input );
+			routeCache.put( input.copy(), r );
+		}
+
+		return r;
+	}
+
+	void partitionChanged()
+	{
+		partitionVersion++;
+	}
+
+	private IMEInventoryHandler<T>[] filterPass(List<IMEInventoryHandler<T>> invList, int pass)
+	{
+		List<IMEInventoryHandler<T>> valid = new ArrayList<IMEInventoryHandler<T>>( invList.size() );
+		for (IMEInventoryHandler<T> inv : invList)
+			if ( inv.validForPass( pass ) )
+				valid.add( inv );
+
+		return valid.toArray( new IMEInventoryHandler[valid.size()] );
+	}
+
+	private IMEInventoryHandler<T>[] getAllHandlers()
+	{
+		if ( allHandlers == null )
+			compileRoutes();
+
+		return allHandlers;
 	}
 
 	static int currentPass = 0;
 	int myPass = 0;
-	static final ThreadLocal<LinkedList> depthMod = new ThreadLocal<LinkedList>();
-	static final ThreadLocal<LinkedList> depthSim = new ThreadLocal<LinkedList>();
 
-	private LinkedList getDepth(Actionable type)
+	/**
+	 * recursion guard, the handlers each thread is currently inside of, kept in an array so entering a handler doesn't
+	 * allocate.
+	 */
+	static class DiveState
 	{
-		ThreadLocal<LinkedList> depth = type == Actionable.MODULATE ? depthMod : depthSim;
 
-		LinkedList s = depth.get();
+		NetworkInventoryHandler[] handlers = new NetworkInventoryHandler[8];
+		int depth = 0;
+
+		boolean contains(NetworkInventoryHandler h)
+		{
+			for (int x = 0; x < depth; x++)
+				if ( handlers[x] == h )
+					return true;
+
+			return false;
+		}
+
+		void push(NetworkInventoryHandler h)
+		{
+			if ( depth == handlers.length )
+				handlers = Arrays.copyOf( handlers, depth * 2 );
+
+			handlers[depth++] = h;
+		}
+
+		NetworkInventoryHandler pop()
+		{
+			if ( depth == 0 )
+				return null;
+
+			NetworkInventoryHandler h = handlers[--depth];
+			handlers[depth] = null;
+			return h;
+		}
+	}
+
+	static final ThreadLocal<DiveState> depthMod = new ThreadLocal<DiveState>();
+	static final ThreadLocal<DiveState> depthSim = new ThreadLocal<DiveState>();
+
+	private DiveState getDepth(Actionable type)
+	{
+		ThreadLocal<DiveState> depth = type == Actionable.MODULATE ? depthMod : depthSim;
+
+		DiveState s = depth.get();
 
 		if ( s == null )
-			depth.set( s = new LinkedList() );
+			depth.set( s = new DiveState() );
 
 		return s;
 	}
 
 	private boolean diveList(NetworkInventoryHandler<T> networkInventoryHandler, Actionable type)
 	{
-		LinkedList cDepth = getDepth( type );
-		if ( cDepth.contains( networkInventoryHandler ) )
+		DiveState s = getDepth( type );
+		if ( s.contains( networkInventoryHandler ) )
 			return true;
 
-		cDepth.push( this );
+		s.push( this );
 		return false;
 	}
 
 	private boolean diveIteration(NetworkInventoryHandler<T> networkInventoryHandler, Actionable type)
 	{
-		LinkedList cDepth = getDepth( type );
-		if ( cDepth.isEmpty() )
+		DiveState s = getDepth( type );
+		if ( s.depth == 0 )
 		{
 			currentPass++;
 			myPass = currentPass;
@@ -120,7 +322,7 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 				myPass = currentPass;
 		}
 
-		cDepth.push( this );
+		s.push( this );
 		return false;
 	}
 
@@ -168,40 +370,57 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 		if ( diveList( this, type ) )
 			return input;
 
-		if ( testPermission( src, SecurityPermissions.INJECT ) )
+		try
 		{
-			surface( this, type );
-			return input;
-		}
+			if ( testPermission( src, SecurityPermissions.INJECT ) )
+				return input;
 
-		for (List<IMEInventoryHandler<T>> invList : priorityInventory.values())
-		{
-			Iterator<IMEInventoryHandler<T>> ii = invList.iterator();
-			while (ii.hasNext() && input != null)
+			if ( allHandlers == null )
+				compileRoutes();
+
+			IMEInventoryHandler<T>[][] routeFirst = firstPass;
+			IMEInventoryHandler<T>[][] routeSecond = secondPass;
+			boolean[][] prioritized = null;
+
+			if ( partitioned )
 			{
-				IMEInventoryHandler<T> inv = ii.next();
+				Route r = getRoute( input );
+				routeFirst = r.firstPass;
+				routeSecond = r.secondPass;
+				prioritized = r.prioritized;
+			}
 
-				if ( inv.validForPass( 1 ) && inv.canAccept( input )
-						&& (inv.isPrioritized( input ) || inv.extractItems( input, Actionable.SIMULATE, src ) != null) )
+			for (int tier = 0; tier < routeFirst.length && input != null; tier++)
+			{
+				IMEInventoryHandler<T>[] invList = routeFirst[tier];
+				for (int x = 0; x < invList.length && input != null; x++)
 				{
-					input = inv.injectItems( input, type, src );
+					IMEInventoryHandler<T> inv = invList[x];
+					boolean known = prioritized != null && prioritized[tier][x];
+
+					if ( inv.canAccept( input ) && (known || inv.isPrioritized( input ) || inv.extractItems( input, Actionable.SIMULATE, src ) != null) )
+					{
+						input = inv.injectItems( input, type, src );
+					}
 				}
-			}
 
-			ii = invList.iterator();
-			while (ii.hasNext() && input != null)
-			{
-				IMEInventoryHandler<T> inv = ii.next();
-				if ( inv.validForPass( 2 ) && inv.canAccept( input ) )// ignore crafting on the second pass.
+				invList = routeSecond[tier];
+				for (int x = 0; x < invList.length && input != null; x++)
 				{
-					input = inv.injectItems( input, type, src );
+					IMEInventoryHandler<T> inv = invList[x];
+					if ( inv.canAccept( input ) )// ignore crafting on the second pass.
+					{
+						input = inv.injectItems( input, type, src );
+					}
 				}
 			}
-		}
 
-		surface( this, type );
-
-		return input;
+			return input;
+		}
+		finally
+		{
+			surface( this, type );
+		}
 	}
 
 	@Override
@@ -210,39 +429,49 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 		if ( diveList( this, mode ) )
 			return null;
 
-		if ( testPermission( src, SecurityPermissions.EXTRACT ) )
+		try
 		{
-			surface( this, mode );
-			return null;
-		}
+			if ( testPermission( src, SecurityPermissions.EXTRACT ) )
+				return null;
 
-		Iterator<List<IMEInventoryHandler<T>>> i = priorityInventory.descendingMap().values().iterator();// priorityInventory.asMap().descendingMap().entrySet().iterator();
+			if ( allHandlers == null )
+				compileRoutes();
 
-		T output = request.copy();
-		request = request.copy();
-		output.setStackSize( 0 );
-		long req = request.getStackSize();
+			IMEInventoryHandler<T>[] invList = extractOrder;
 
-		while (i.hasNext())
-		{
-			List<IMEInventoryHandler<T>> invList = i.next();
+			T output = null;
+			long req = request.getStackSize();
+			long found = 0;
+
+			if ( invList.length > 0 )
+				request = request.copy();
 
-			Iterator<IMEInventoryHandler<T>> ii = invList.iterator();
-			while (ii.hasNext() && output.getStackSize() < req)
+			for (int x = 0; x < invList.length && found < req; x++)
 			{
-				IMEInventoryHandler<T> inv = ii.next();
+				request.setStackSize( req - found );
+				T result = invList[x].extractItems( request, mode, src );
 
-				request.setStackSize( req - output.getStackSize() );
-				output.add( inv.extractItems( request, mode, src ) );
-			}
-		}
+				if ( result == null )
+					continue;
 
-		surface( this, mode );
+				// sub handlers may hand out stacks they still hold, never add to those.
+				if ( output == null )
+					output = result.copy();
+				else
+					output.add( result );
 
-		if ( output.getStackSize() <= 0 )
-			return null;
+				found = output.getStackSize();
+			}
 
-		return output;
+			if ( output == null || output.getStackSize() <= 0 )
+				return null;
+
+			return output;
+		}
+		finally
+		{
+			surface( this, mode );
+		}
 	}
 
 	@Override
@@ -251,14 +480,17 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 		if ( diveIteration( this, Actionable.SIMULATE ) )
 			return out;
 
-		// for (Entry<Integer, IMEInventoryHandler<T>> h : priorityInventory.entries())
-		for (List<IMEInventoryHandler<T>> i : priorityInventory.values())
-			for (IMEInventoryHandler<T> j : i)
+		try
+		{
+			for (IMEInventoryHandler<T> j : getAllHandlers())
 				out = j.getAvailableItems( out );
 
-		surface( this, Actionable.SIMULATE );
-
-		return out;
+			return out;
+		}
+		finally
+		{
+			surface( this, Actionable.SIMULATE );
+		}
 	}
 
 	@Override
@@ -321,9 +321,9 @@ public class PartFormationPlane extends PartUpgradeable implements ICellContaine
 		}
 
 		if ( getInstalledUpgrades( Upgrades.FUZZY ) > 0 )
-			myHandler.myPartitionList = new FuzzyPriorityList( priorityList, (FuzzyMode) this.getConfigManager().getSetting( Settings.FUZZY_MODE ) );
+			myHandler.setPartitionList( new FuzzyPriorityList( priorityList, (FuzzyMode) this.getConfigManager().getSetting( Settings.FUZZY_MODE ) ) );
 		else
-			myHandler.myPartitionList = new PrecisePriorityList( priorityList );
+			myHandler.setPartitionList( new PrecisePriorityList( priorityList ) );
 
 		try
 		{
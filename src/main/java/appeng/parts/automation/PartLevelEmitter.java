@@ -69,9 +69,11 @@ import appeng.api.util.IConfigManager;
 import appeng.client.texture.CableBusTextures;
 import appeng.core.sync.GuiBridge;
 import appeng.me.GridAccessException;
+import appeng.me.cache.NetworkMonitor;
 import appeng.tile.inventory.AppEngInternalAEInventory;
 import appeng.tile.inventory.InvOperation;
 import appeng.util.Platform;
+import appeng.util.item.FuzzyTotal;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -89,6 +91,10 @@ public class PartLevelEmitter extends PartUpgradeable implements IEnergyWatcherH
 	long reportingValue = 0;
 
 	IStackWatcher myWatcher;
+
+	// the running total of the fuzzy filter, from the network monitor it was requested from.
+	private FuzzyTotal fuzzyTotal;
+	private NetworkMonitor<IAEItemStack> fuzzyMonitor;
 	IEnergyWatcher myEnergyWatcher;
 	ICraftingWatcher myCraftingWatcher;
 
@@ -207,6 +213,8 @@ public class PartLevelEmitter extends PartUpgradeable implements IEnergyWatcherH
 		if ( myCraftingWatcher != null )
 			myCraftingWatcher.clear();
 
+		releaseFuzzyTotal();
+
 		try
 		{
 			proxy.getGrid().postEvent( new MENetworkCraftingPatternChange( this, proxy.getNode() ) );
@@ -250,7 +258,14 @@ public class PartLevelEmitter extends PartUpgradeable implements IEnergyWatcherH
 		{
 			if ( getInstalledUpgrades( Upgrades.FUZZY ) > 0 || myStack == null )
 			{
-				proxy.getStorage().getItemInventory().addListener( this, proxy.getGrid() );
+				IMEMonitor<IAEItemStack> monitor = proxy.getStorage().getItemInventory();
+				monitor.addListener( this, proxy.getGrid() );
+
+				if ( myStack != null && monitor instanceof NetworkMonitor )
+				{
+					fuzzyMonitor = (NetworkMonitor<IAEItemStack>) monitor;
+					fuzzyTotal = fuzzyMonitor.watchFuzzy( myStack, (FuzzyMode) getConfigManager().getSetting( Settings.FUZZY_MODE ) );
+				}
 			}
 			else
 			{
@@ -268,6 +283,23 @@ public class PartLevelEmitter extends PartUpgradeable implements IEnergyWatcherH
 		}
 	}
 
+	private void releaseFuzzyTotal()
+	{
+		if ( fuzzyTotal != null )
+		{
+			fuzzyMonitor.unwatchFuzzy( fuzzyTotal );
+			fuzzyTotal = null;
+			fuzzyMonitor = null;
+		}
+	}
+
+	@Override
+	public void removeFromWorld()
+	{
+		super.removeFromWorld();
+		releaseFuzzyTotal();
+	}
+
 	@Override
 	public void onChangeInventory(IInventory inv, int slot, InvOperation mc, ItemStack removedStack, ItemStack newStack)
 	{
@@ -302,12 +334,20 @@ public class PartLevelEmitter extends PartUpgradeable implements IEnergyWatcherH
 	{
 		IAEItemStack myStack = config.getAEStackInSlot( 0 );
 
-		if ( myStack == null )
+		if ( myStack == null && monitor instanceof NetworkMonitor )
+		{
+			lastReportedValue = ((NetworkMonitor<IAEItemStack>) monitor).getStoredTotal();
+		}
+		else if ( myStack == null )
 		{
 			lastReportedValue = 0;
 			for (IAEItemStack st : monitor.getStorageList())
 				lastReportedValue += st.getStackSize();
 		}
+		else if ( fuzzyTotal != null && fuzzyMonitor == monitor )
+		{
+			lastReportedValue = fuzzyTotal.getTotal();
+		}
 		else if ( getInstalledUpgrades( Upgrades.FUZZY ) > 0 )
 		{
 			lastReportedValue = 0;
@@ -221,7 +221,7 @@ public class PartStorageBus
 		IMEInventory<IAEItemStack> out = getInternalHandler();
 
 		if ( monitor != null )
-			monitor.onTick();
+			monitor.scanAll();
 
 		IItemList<IAEItemStack> after = AEApi.instance().storage().createItemList();
 		if ( out != null )
@@ -334,9 +334,9 @@ public class PartStorageBus
 					}
 
 					if ( getInstalledUpgrades( Upgrades.FUZZY ) > 0 )
-						handler.myPartitionList = new FuzzyPriorityList( priorityList, ( FuzzyMode ) this.getConfigManager().getSetting( Settings.FUZZY_MODE ) );
+						handler.setPartitionList( new FuzzyPriorityList( priorityList, ( FuzzyMode ) this.getConfigManager().getSetting( Settings.FUZZY_MODE ) ) );
 					else
-						handler.myPartitionList = new PrecisePriorityList( priorityList );
+						handler.setPartitionList( new PrecisePriorityList( priorityList ) );
 
 					if ( inv instanceof IMEMonitor )
 						( ( IMEMonitor ) inv ).addListener( this, handler );
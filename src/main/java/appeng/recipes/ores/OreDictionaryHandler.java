@@ -26,6 +26,7 @@ import net.minecraft.item.crafting.CraftingManager;
 import net.minecraftforge.oredict.OreDictionary;
 import appeng.core.AELog;
 import appeng.recipes.game.IRecipeBakeable;
+import appeng.util.RecipeIndex;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 
 public class OreDictionaryHandler
@@ -54,6 +55,8 @@ public class OreDictionaryHandler
 		if ( event.Name == null || event.Ore == null )
 			return;
 
+		RecipeIndex.oreRegistered();
+
 		if ( shouldCare( event.Name ) )
 		{
 			for (IOreListener v : ol)
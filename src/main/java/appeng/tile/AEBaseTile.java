@@ -19,6 +19,7 @@
 package appeng.tile;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 
 import java.lang.ref.WeakReference;
@@ -26,7 +27,6 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 
 import net.minecraft.entity.player.EntityPlayer;
@@ -48,6 +48,7 @@ import appeng.core.AELog;
 import appeng.core.features.ItemStackSrc;
 import appeng.helpers.ICustomNameObject;
 import appeng.helpers.IPriorityHost;
+import appeng.hooks.TickHandler;
 import appeng.tile.events.AETileEventHandler;
 import appeng.tile.events.TileEventType;
 import appeng.tile.inventory.AppEngInternalAEInventory;
@@ -57,9 +58,16 @@ import appeng.util.SettingsFrom;
 public class AEBaseTile extends TileEntity implements IOrientable, ICommonTile, ICustomNameObject
 {
 
-	static private final HashMap<Class, EnumMap<TileEventType, List<AETileEventHandler>>> handlers = new HashMap<Class, EnumMap<TileEventType, List<AETileEventHandler>>>();
+	static private final HashMap<Class, AETileEventHandler[][]> handlers = new HashMap<Class, AETileEventHandler[][]>();
+	static private final AETileEventHandler[] noHandlers = new AETileEventHandler[0];
 	static private final HashMap<Class, ItemStackSrc> myItem = new HashMap<Class, ItemStackSrc>();
 
+	// the handlers of this tile's class by TileEventType ordinal, resolved on first use.
+	private AETileEventHandler[][] myHandlers;
+
+	// hash of the stream last sent for markForUpdate, unchanged tiles don't send it again.
+	private long lastUpdateHash = 0;
+
 	private ForgeDirection forward = ForgeDirection.UNKNOWN;
 	private ForgeDirection up = ForgeDirection.UNKNOWN;
 
@@ -104,38 +112,48 @@ public class AEBaseTile extends TileEntity implements IOrientable, ICommonTile,
 
 	protected boolean hasHandlerFor(TileEventType type)
 	{
-		List<AETileEventHandler> list = getHandlerListFor( type );
-		return list != null && !list.isEmpty();
+		return getHandlerListFor( type ).length > 0;
 	}
 
-	protected List<AETileEventHandler> getHandlerListFor(TileEventType type)
+	protected AETileEventHandler[] getHandlerListFor(TileEventType type)
 	{
-		Class clz = getClass();
-		EnumMap<TileEventType, List<AETileEventHandler>> handlerSet = handlers.get( clz );
+		if ( myHandlers == null )
+			myHandlers = getHandlers( getClass() );
+
+		return myHandlers[type.ordinal()];
+	}
+
+	static private synchronized AETileEventHandler[][] getHandlers(Class clz)
+	{
+		AETileEventHandler[][] handlerSet = handlers.get( clz );
 
 		if ( handlerSet == null )
 		{
-			handlers.put( clz, handlerSet = new EnumMap<TileEventType, List<AETileEventHandler>>( TileEventType.class ) );
+			EnumMap<TileEventType, List<AETileEventHandler>> found = new EnumMap<TileEventType, List<AETileEventHandler>>( TileEventType.class );
 
 			for (Method m : clz.getMethods())
 			{
 				TileEvent te = m.getAnnotation( TileEvent.class );
 				if ( te != null )
 				{
-					addHandler( handlerSet, te.value(), m );
+					addHandler( found, te.value(), m );
 				}
 			}
-		}
 
-		List<AETileEventHandler> list = handlerSet.get( type );
+			handlerSet = new AETileEventHandler[TileEventType.values().length][];
+			for (TileEventType type : TileEventType.values())
+			{
+				List<AETileEventHandler> list = found.get( type );
+				handlerSet[type.ordinal()] = list == null ? noHandlers : list.toArray( new AETileEventHandler[list.size()] );
+			}
 
-		if ( list == null )
-			handlerSet.put( type, list = new LinkedList<AETileEventHandler>() );
+			handlers.put( clz, handlerSet );
+		}
 
-		return list;
+		return handlerSet;
 	}
 
-	private void addHandler(EnumMap<TileEventType, List<AETileEventHandler>> handlerSet, TileEventType value, Method m)
+	static private void addHandler(EnumMap<TileEventType, List<AETileEventHandler>> handlerSet, TileEventType value, Method m)
 	{
 		List<AETileEventHandler> list = handlerSet.get( value );
 
@@ -327,21 +345,23 @@ public class AEBaseTile extends TileEntity implements IOrientable, ICommonTile,
 	{
 		NBTTagCompound data = new NBTTagCompound();
 
-		ByteBuf stream = Unpooled.buffer();
+		ByteBuf stream = PooledByteBufAllocator.DEFAULT.heapBuffer();
 
 		try
 		{
 			writeToStream( stream );
 			if ( stream.readableBytes() == 0 )
 				return null;
+
+			byte[] bytes = new byte[stream.readableBytes()];
+			stream.readBytes( bytes );
+			data.setByteArray( "X", bytes );
 		}
-		catch (Throwable t)
+		finally
 		{
-			AELog.error( t );
+			stream.release();
 		}
 
-		stream.capacity( stream.readableBytes() );
-		data.setByteArray( "X", stream.array() );
 		return new S35PacketUpdateTileEntity( xCoord, yCoord, zCoord, 64, data );
 	}
 
@@ -351,7 +371,7 @@ public class AEBaseTile extends TileEntity implements IOrientable, ICommonTile,
 		// / pkt.actionType
 		if ( pkt.func_148853_f() == 64 )
 		{
-			ByteBuf stream = Unpooled.copiedBuffer( pkt.func_148857_g().getByteArray( "X" ) );
+			ByteBuf stream = Unpooled.wrappedBuffer( pkt.func_148857_g().getByteArray( "X" ) );
 			if ( readFromStream( stream ) )
 				markForUpdate();
 		}
@@ -361,17 +381,46 @@ public class AEBaseTile extends TileEntity implements IOrientable, ICommonTile,
 	{
 		if ( renderFragment > 0 )
 			renderFragment = renderFragment | 1;
-		else
+		else if ( worldObj != null )
 		{
-			// TODO: Optimize Network Load
-			if ( worldObj != null )
-			{
-				AELog.blockUpdate( xCoord, yCoord, zCoord, this );
+			if ( worldObj.isRemote )
 				worldObj.markBlockForUpdate( xCoord, yCoord, zCoord );
-			}
+			else
+				TickHandler.instance.addUpdate( this );
 		}
 	}
 
+	/**
+	 * sends the update queued by {@link #markForUpdate()} at the end of the tick, unless the stream is the same as the
+	 * last one sent.
+	 */
+	public void sendUpdate()
+	{
+		ByteBuf stream = PooledByteBufAllocator.DEFAULT.heapBuffer();
+
+		try
+		{
+			writeToStream( stream );
+
+			// FNV-1a
+			long hash = 0xcbf29ce484222325L;
+			for (int x = stream.readerIndex(); x < stream.writerIndex(); x++)
+				hash = (hash ^ (stream.getByte( x ) & 0xff)) * 0x100000001b3L;
+
+			if ( hash == lastUpdateHash )
+				return;
+
+			lastUpdateHash = hash;
+		}
+		finally
+		{
+			stream.release();
+		}
+
+		AELog.blockUpdate( xCoord, yCoord, zCoord, this );
+		worldObj.markBlockForUpdate( xCoord, yCoord, zCoord );
+	}
+
 	/**
 	 * returns the contents of the tile entity, into the world, defaults to dropping everything in the inventory.
 	 * 
@@ -21,109 +21,60 @@ package appeng.tile.events;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
 
 import io.netty.buffer.ByteBuf;
 
 import net.minecraft.nbt.NBTTagCompound;
 
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
 import appeng.tile.AEBaseTile;
+import appeng.util.GeneratedClassLoader;
 
 
 public class AETileEventHandler
 {
 
-	private final Method method;
+	private static final Map<Method, Invoker> invokers = new HashMap<Method, Invoker>();
+
+	private final Invoker invoker;
 
 	public AETileEventHandler( Method m, TileEventType which )
 	{
-		method = m;
+		invoker = getInvoker( m );
 	}
 
 	// TICK
 	public void Tick( AEBaseTile tile )
 	{
-		try
-		{
-			method.invoke( tile );
-		}
-		catch ( IllegalAccessException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( IllegalArgumentException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( InvocationTargetException e )
-		{
-			throw new RuntimeException( e );
-		}
+		invoker.invoke( tile, null );
 	}
 
 	// WORLD_NBT
 	public void writeToNBT( AEBaseTile tile, NBTTagCompound data )
 	{
-		try
-		{
-			method.invoke( tile, data );
-		}
-		catch ( IllegalAccessException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( IllegalArgumentException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( InvocationTargetException e )
-		{
-			throw new RuntimeException( e );
-		}
+		invoker.invoke( tile, data );
 	}
 
 	// WORLD NBT
 	public void readFromNBT( AEBaseTile tile, NBTTagCompound data )
 	{
-		try
-		{
-			method.invoke( tile, data );
-		}
-		catch ( IllegalAccessException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( IllegalArgumentException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( InvocationTargetException e )
-		{
-			throw new RuntimeException( e );
-		}
+		invoker.invoke( tile, data );
 	}
 
 	// NETWORK
 	public void writeToStream( AEBaseTile tile, ByteBuf data )
 	{
-		try
-		{
-			method.invoke( tile, data );
-		}
-		catch ( IllegalAccessException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( IllegalArgumentException e )
-		{
-			throw new RuntimeException( e );
-		}
-		catch ( InvocationTargetException e )
-		{
-			throw new RuntimeException( e );
-		}
+		invoker.invoke( tile, data );
 	}
 
 	// NETWORK
@@ -136,19 +87,131 @@ public class AETileEventHandler
 	@SideOnly( Side.CLIENT )
 	public boolean readFromStream( AEBaseTile tile, ByteBuf data )
 	{
-		try
+		return invoker.invoke( tile, data );
+	}
+
+	/**
+	 * calls one handler, generated for each public handler so ticks and saves don't go through reflection.
+	 */
+	public static abstract class Invoker
+	{
+
+		/**
+		 * @param data the handler's parameter, unused for ticks.
+		 * @return what the handler returned, false for handlers that don't return a boolean.
+		 */
+		public abstract boolean invoke( AEBaseTile tile, Object data );
+	}
+
+
+	static class ReflectiveInvoker extends Invoker
+	{
+
+		private final Method method;
+
+		public ReflectiveInvoker( Method method )
 		{
-			return ( Boolean ) method.invoke( tile, data );
+			this.method = method;
 		}
-		catch ( IllegalAccessException e )
+
+		@Override
+		public boolean invoke( AEBaseTile tile, Object data )
 		{
-			throw new RuntimeException( e );
+			try
+			{
+				Object out = method.getParameterTypes().length == 0 ? method.invoke( tile ) : method.invoke( tile, data );
+				return out instanceof Boolean && ( Boolean ) out;
+			}
+			catch ( IllegalAccessException e )
+			{
+				throw new RuntimeException( e );
+			}
+			catch ( IllegalArgumentException e )
+			{
+				throw new RuntimeException( e );
+			}
+			catch ( InvocationTargetException e )
+			{
+				throw new RuntimeException( e );
+			}
 		}
-		catch ( IllegalArgumentException e )
+	}
+
+	private static synchronized Invoker getInvoker( Method m )
+	{
+		Invoker invoker = invokers.get( m );
+		if ( invoker == null )
+		{
+			invoker = createInvoker( m );
+			invokers.put( m, invoker );
+		}
+
+		return invoker;
+	}
+
+	private static Invoker createInvoker( Method m )
+	{
+		Class owner = m.getDeclaringClass();
+		Class[] params = m.getParameterTypes();
+
+		// see GeneratedClassLoader, only public classes can be called directly.
+		if ( !Modifier.isPublic( owner.getModifiers() ) || params.length > 1 || ( params.length == 1 && ( params[0].isPrimitive() || !Modifier.isPublic( params[0].getModifiers() ) ) ) )
+			return new ReflectiveInvoker( m );
+
+		String name = GeneratedClassLoader.instance.nextName( AETileEventHandler.class, "Invoker" ).replace( '.', '/' );
+		String ownerName = Type.getInternalName( owner );
+		Type returnType = Type.getReturnType( m );
+
+		ClassWriter cw = new ClassWriter( ClassWriter.COMPUTE_MAXS );
+		cw.visit( Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, Type.getInternalName( Invoker.class ), null );
+
+		MethodVisitor mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "<init>", "()V", null, null );
+		mv.visitCode();
+		mv.visitVarInsn( Opcodes.ALOAD, 0 );
+		mv.visitMethodInsn( Opcodes.INVOKESPECIAL, Type.getInternalName( Invoker.class ), "<init>", "()V", false );
+		mv.visitInsn( Opcodes.RETURN );
+		mv.visitMaxs( 0, 0 );
+		mv.visitEnd();
+
+		mv = cw.visitMethod( Opcodes.ACC_PUBLIC, "invoke", Type.getMethodDescriptor( Type.BOOLEAN_TYPE, Type.getType( AEBaseTile.class ), Type.getType( Object.class ) ), null, null );
+		mv.visitCode();
+		mv.visitVarInsn( Opcodes.ALOAD, 1 );
+		mv.visitTypeInsn( Opcodes.CHECKCAST, ownerName );
+
+		if ( params.length == 1 )
+		{
+			mv.visitVarInsn( Opcodes.ALOAD, 2 );
+			mv.visitTypeInsn( Opcodes.CHECKCAST, Type.getInternalName( params[0] ) );
+		}
+
+		mv.visitMethodInsn( Opcodes.INVOKEVIRTUAL, ownerName, m.getName(), Type.getMethodDescriptor( m ), false );
+
+		if ( returnType.getSort() != Type.BOOLEAN )
+		{
+			if ( returnType.getSize() == 1 )
+				mv.visitInsn( Opcodes.POP );
+			else if ( returnType.getSize() == 2 )
+				mv.visitInsn( Opcodes.POP2 );
+
+			mv.visitInsn( Opcodes.ICONST_0 );
+		}
+
+		mv.visitInsn( Opcodes.IRETURN );
+		mv.visitMaxs( 0, 0 );
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		try
+		{
+			Class c = GeneratedClassLoader.instance.define( name.replace( '/', '.' ), cw.toByteArray() );
+			return ( Invoker ) c.newInstance();
+		}
+		catch ( InstantiationException e )
 		{
 			throw new RuntimeException( e );
 		}
-		catch ( InvocationTargetException e )
+		catch ( IllegalAccessException e )
 		{
 			throw new RuntimeException( e );
 		}
@@ -30,6 +30,7 @@ import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.World;
 import net.minecraftforge.common.util.ForgeDirection;
 import net.minecraftforge.fluids.Fluid;
 import net.minecraftforge.fluids.FluidStack;
@@ -80,6 +81,7 @@ import appeng.api.util.AEColor;
 import appeng.api.util.IConfigManager;
 import appeng.helpers.IPriorityHost;
 import appeng.me.GridAccessException;
+import appeng.me.storage.CellInventory;
 import appeng.me.storage.MEInventoryHandler;
 import appeng.tile.TileEvent;
 import appeng.tile.events.TileEventType;
@@ -262,6 +264,8 @@ public class TileChest extends AENetworkPowerTile implements IMEChest, IFluidHan
 	@TileEvent(TileEventType.WORLD_NBT_WRITE)
 	public void writeToNBT_TileChest(NBTTagCompound data)
 	{
+		CellInventory.flushDirtyCells( this );
+
 		config.writeToNBT( data );
 		data.setInteger( "priority", priority );
 		data.setByte( "paintedColor", (byte) paintedColor.ordinal() );
@@ -519,9 +523,39 @@ public class TileChest extends AENetworkPowerTile implements IMEChest, IFluidHan
 		}
 	}
 
+	/**
+	 * whatever reads the cell slot may copy the cell, so it has to carry everything written to it first.
+	 */
+	private void flushCells()
+	{
+		if ( worldObj == null || !worldObj.isRemote )
+			CellInventory.flushDirtyCells( this );
+	}
+
+	@Override
+	public ItemStack getStackInSlot(int i)
+	{
+		if ( i == 1 )
+			flushCells();
+
+		return super.getStackInSlot( i );
+	}
+
+	@Override
+	public ItemStack decrStackSize(int i, int j)
+	{
+		if ( i == 1 )
+			flushCells();
+
+		return super.decrStackSize( i, j );
+	}
+
 	@Override
 	public void setInventorySlotContents(int i, ItemStack itemstack)
 	{
+		if ( i == 1 )
+			flushCells();
+
 		inv.setInventorySlotContents( i, itemstack );
 		tryToStoreContents();
 	}
@@ -902,6 +936,28 @@ public class TileChest extends AENetworkPowerTile implements IMEChest, IFluidHan
 		return true;
 	}
 
+	@Override
+	public void getDrops(World w, int x, int y, int z, ArrayList<ItemStack> drops)
+	{
+		// the dropped cells must carry everything written to them.
+		flushCells();
+		super.getDrops( w, x, y, z, drops );
+	}
+
+	@Override
+	public void onChunkUnload()
+	{
+		flushCells();
+		super.onChunkUnload();
+	}
+
+	@Override
+	public void invalidate()
+	{
+		flushCells();
+		super.invalidate();
+	}
+
 	@Override
 	public void saveChanges(IMEInventory cellInventory)
 	{
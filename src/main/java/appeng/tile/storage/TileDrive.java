@@ -27,6 +27,7 @@ import java.util.List;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.World;
 import net.minecraftforge.common.util.ForgeDirection;
 import appeng.api.AEApi;
 import appeng.api.implementations.tiles.IChestOrDrive;
@@ -47,6 +48,7 @@ import appeng.api.util.AECableType;
 import appeng.api.util.DimensionalCoord;
 import appeng.helpers.IPriorityHost;
 import appeng.me.GridAccessException;
+import appeng.me.storage.CellInventory;
 import appeng.me.storage.DriveWatcher;
 import appeng.me.storage.MEInventoryHandler;
 import appeng.tile.TileEvent;
@@ -142,6 +144,8 @@ public class TileDrive extends AENetworkInvTile implements IChestOrDrive, IPrior
 	@TileEvent(TileEventType.WORLD_NBT_WRITE)
 	public void writeToNBT_TileDrive(NBTTagCompound data)
 	{
+		CellInventory.flushDirtyCells( this );
+
 		data.setInteger( "priority", priority );
 	}
 
@@ -380,6 +384,58 @@ public class TileDrive extends AENetworkInvTile implements IChestOrDrive, IPrior
 		return itemstack != null && AEApi.instance().registries().cell().isCellHandled( itemstack );
 	}
 
+	/**
+	 * whatever reads a cell slot may copy the cell, so it has to carry everything written to it first.
+	 */
+	private void flushCells()
+	{
+		if ( worldObj == null || !worldObj.isRemote )
+			CellInventory.flushDirtyCells( this );
+	}
+
+	@Override
+	public ItemStack getStackInSlot(int i)
+	{
+		flushCells();
+		return super.getStackInSlot( i );
+	}
+
+	@Override
+	public ItemStack decrStackSize(int i, int j)
+	{
+		flushCells();
+		return super.decrStackSize( i, j );
+	}
+
+	@Override
+	public void setInventorySlotContents(int i, ItemStack itemstack)
+	{
+		flushCells();
+		super.setInventorySlotContents( i, itemstack );
+	}
+
+	@Override
+	public void getDrops(World w, int x, int y, int z, ArrayList<ItemStack> drops)
+	{
+		// the dropped cells must carry everything written to them.
+		flushCells();
+		super.getDrops( w, x, y, z, drops );
+	}
+
+	@Override
+	public void onChunkUnload()
+	{
+		flushCells();
+		super.onChunkUnload();
+	}
+
+	@Override
+	public void invalidate()
+	{
+		flushCells();
+		super.invalidate();
+	}
+
 	@Override
 	public void saveChanges(IMEInventory cellInventory)
 	{
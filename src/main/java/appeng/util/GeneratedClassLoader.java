@@ -16,27 +16,34 @@
  * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
  */
 
-package appeng.me;
+package appeng.util;
 
-import appeng.api.networking.IGridNode;
-import appeng.api.networking.IGridVisitor;
-
-class GridSplitDetector implements IGridVisitor
+/**
+ * Defines classes generated at runtime, such as event invokers. They can only see public classes and members of the
+ * mod's own class loader.
+ */
+public class GeneratedClassLoader extends ClassLoader
 {
 
-	final IGridNode pivot;
-	boolean pivotFound;
+	public static final GeneratedClassLoader instance = new GeneratedClassLoader( GeneratedClassLoader.class.getClassLoader() );
+
+	private int generated = 0;
 
-	public GridSplitDetector(IGridNode pivot) {
-		this.pivot = pivot;
+	private GeneratedClassLoader(ClassLoader parent) {
+		super( parent );
 	}
 
-	@Override
-	public boolean visitNode(IGridNode n)
+	/**
+	 * @return a name in the package of the given class that wasn't handed out before.
+	 */
+	public synchronized String nextName(Class<?> near, String prefix)
 	{
-		if ( n == pivot )
-			pivotFound = true;
+		return near.getName() + '$' + prefix + generated++;
+	}
 
-		return !pivotFound;
+	public synchronized Class<?> define(String name, byte[] data)
+	{
+		return defineClass( name, data, 0, data.length );
 	}
+
 }
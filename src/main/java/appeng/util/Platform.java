@@ -594,18 +594,7 @@ public class Platform
 	 */
 	public static IRecipe findMatchingRecipe(InventoryCrafting par1InventoryCrafting, World par2World)
 	{
-		CraftingManager cm = CraftingManager.getInstance();
-		List<IRecipe> rl = cm.getRecipeList();
-
-		for (IRecipe r : rl)
-		{
-			if ( r.matches( par1InventoryCrafting, par2World ) )
-			{
-				return r;
-			}
-		}
-
-		return null;
+		return RecipeIndex.findMatchingRecipe( par1InventoryCrafting, par2World );
 	}
 
 	public static ItemStack[] getBlockDrops(World w, int x, int y, int z)
@@ -795,7 +784,11 @@ public class Platform
 
 	public static ItemStack findMatchingRecipeOutput(InventoryCrafting ic, World worldObj)
 	{
-		return CraftingManager.getInstance().findMatchingRecipe( ic, worldObj );
+		if ( RecipeIndex.isRepair( ic ) )
+			return CraftingManager.getInstance().findMatchingRecipe( ic, worldObj );
+
+		IRecipe r = findMatchingRecipe( ic, worldObj );
+		return r == null ? null : r.getCraftingResult( ic );
 	}
 
 	@SideOnly(Side.CLIENT)
@@ -0,0 +1,323 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.CraftingManager;
+import net.minecraft.item.crafting.IRecipe;
+import net.minecraft.item.crafting.ShapedRecipes;
+import net.minecraft.item.crafting.ShapelessRecipes;
+import net.minecraft.world.World;
+import net.minecraftforge.oredict.ShapedOreRecipe;
+import net.minecraftforge.oredict.ShapelessOreRecipe;
+
+/**
+ * Finds crafting recipes without testing every registered one.
+ *
+ * Recipes whose inputs can be read are filed under the item of one of their inputs, a grid can only match recipes
+ * filed under the items it holds. Recipes that only take ore dictionary inputs, or that are of an unknown kind, are
+ * tested for every grid. Recently matched grids are remembered, grids that match nothing are searched again every time.
+ *
+ * The index is built on first use and rebuilt whenever the recipes in the list change, which is checked on every lookup
+ * by hashing the identities of the listed recipes. Remembered grids are also forgotten when an ore is registered.
+ */
+public class RecipeIndex
+{
+
+	private static final int CACHED_GRIDS = 512;
+
+	static class IndexedRecipe
+	{
+
+		final int order;
+		final IRecipe recipe;
+
+		public IndexedRecipe(int order, IRecipe recipe) {
+			this.order = order;
+			this.recipe = recipe;
+		}
+
+	}
+
+	static class Grid
+	{
+
+		final Item[] items;
+		final int[] damage;
+		final ItemStack[] stacks;
+		final int hash;
+
+		public Grid(InventoryCrafting ic) {
+			int size = ic.getSizeInventory();
+			items = new Item[size];
+			damage = new int[size];
+			stacks = new ItemStack[size];
+
+			int h = size;
+			for (int x = 0; x < size; x++)
+			{
+				ItemStack is = ic.getStackInSlot( x );
+				if ( is != null )
+				{
+					stacks[x] = is.copy();
+					items[x] = is.getItem();
+					damage[x] = is.getItemDamage();
+					h = h * 31 + System.identityHashCode( items[x] ) ^ damage[x];
+				}
+				else
+					h = h * 31;
+			}
+
+			hash = h;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if ( !(obj instanceof Grid) )
+				return false;
+
+			Grid g = (Grid) obj;
+			if ( g.hash != hash || g.items.length != items.length )
+				return false;
+
+			for (int x = 0; x < items.length; x++)
+			{
+				if ( items[x] != g.items[x] || damage[x] != g.damage[x] )
+					return false;
+
+				if ( stacks[x] != null && !ItemStack.areItemStackTagsEqual( stacks[x], g.stacks[x] ) )
+					return false;
+			}
+
+			return true;
+		}
+
+	}
+
+	private static final Map<Item, List<IndexedRecipe>> byItem = new HashMap<Item, List<IndexedRecipe>>();
+	private static final List<IndexedRecipe> unindexed = new ArrayList<IndexedRecipe>();
+
+	private static final Map<Grid, IRecipe> recent = new LinkedHashMap<Grid, IRecipe>( CACHED_GRIDS, 0.75f, true ) {
+
+		private static final long serialVersionUID = 4208214813539711218L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Grid, IRecipe> eldest)
+		{
+			return size() > CACHED_GRIDS;
+		}
+
+	};
+
+	private static List<IRecipe> indexedList;
+	private static int indexedChecksum;
+
+	/**
+	 * same result as testing every recipe in the crafting manager in order.
+	 */
+	public static synchronized IRecipe findMatchingRecipe(InventoryCrafting ic, World w)
+	{
+		List<IRecipe> rl = CraftingManager.getInstance().getRecipeList();
+		int sum = checksum( rl );
+		if ( rl != indexedList || sum != indexedChecksum )
+			rebuild( rl, sum );
+
+		Grid grid = new Grid( ic );
+		IRecipe r = recent.get( grid );
+		if ( r != null && r.matches( ic, w ) )
+			return r;
+
+		r = search( ic, w );
+		if ( r != null )
+			recent.put( grid, r );
+
+		return r;
+	}
+
+	/**
+	 * forgets remembered grids, an earlier recipe may match them now.
+	 */
+	public static synchronized void oreRegistered()
+	{
+		recent.clear();
+	}
+
+	/**
+	 * vanilla repairs two damaged copies of an item before looking at any recipe.
+	 */
+	public static boolean isRepair(InventoryCrafting ic)
+	{
+		ItemStack a = null;
+		ItemStack b = null;
+
+		for (int x = 0; x < ic.getSizeInventory(); x++)
+		{
+			ItemStack is = ic.getStackInSlot( x );
+			if ( is == null )
+				continue;
+
+			if ( a == null )
+				a = is;
+			else if ( b == null )
+				b = is;
+			else
+				return false;
+		}
+
+		return b != null && a.getItem() == b.getItem() && a.stackSize == 1 && b.stackSize == 1 && a.getItem().isRepairable();
+	}
+
+	private static IRecipe search(InventoryCrafting ic, World w)
+	{
+		List<List<IndexedRecipe>> buckets = new ArrayList<List<IndexedRecipe>>( ic.getSizeInventory() + 1 );
+		List<Item> seen = new ArrayList<Item>( ic.getSizeInventory() );
+		buckets.add( unindexed );
+
+		for (int x = 0; x < ic.getSizeInventory(); x++)
+		{
+			ItemStack is = ic.getStackInSlot( x );
+			if ( is == null || seen.contains( is.getItem() ) )
+				continue;
+
+			seen.add( is.getItem() );
+
+			List<IndexedRecipe> filed = byItem.get( is.getItem() );
+			if ( filed != null )
+				buckets.add( filed );
+		}
+
+		// the first match in the recipe list wins, like in the crafting manager; every bucket is already in list order,
+		// so they are merged as they are tested.
+		int[] next = new int[buckets.size()];
+
+		while (true)
+		{
+			IndexedRecipe first = null;
+			int from = -1;
+
+			for (int b = 0; b < buckets.size(); b++)
+			{
+				List<IndexedRecipe> bucket = buckets.get( b );
+				if ( next[b] < bucket.size() )
+				{
+					IndexedRecipe ir = bucket.get( next[b] );
+					if ( first == null || ir.order < first.order )
+					{
+						first = ir;
+						from = b;
+					}
+				}
+			}
+
+			if ( first == null )
+				return null;
+
+			next[from]++;
+
+			if ( first.recipe.matches( ic, w ) )
+				return first.recipe;
+		}
+	}
+
+	/**
+	 * @return a hash of which recipes are listed and in what order, recipes replaced in place change it as well.
+	 */
+	private static int checksum(List<IRecipe> rl)
+	{
+		int h = rl.size();
+		for (IRecipe r : rl)
+			h = h * 31 + System.identityHashCode( r );
+
+		return h;
+	}
+
+	private static void rebuild(List<IRecipe> rl, int sum)
+	{
+		byItem.clear();
+		unindexed.clear();
+		recent.clear();
+
+		for (int x = 0; x < rl.size(); x++)
+		{
+			IRecipe r = rl.get( x );
+			IndexedRecipe ir = new IndexedRecipe( x, r );
+			Item key = getKey( r );
+
+			if ( key == null )
+				unindexed.add( ir );
+			else
+			{
+				List<IndexedRecipe> filed = byItem.get( key );
+				if ( filed == null )
+					byItem.put( key, filed = new ArrayList<IndexedRecipe>() );
+
+				filed.add( ir );
+			}
+		}
+
+		indexedList = rl;
+		indexedChecksum = sum;
+	}
+
+	/**
+	 * @return the item of an input every match has to contain, or null if there is no plain item input.
+	 */
+	private static Item getKey(IRecipe r)
+	{
+		Object[] inputs;
+		Class<?> c = r.getClass();
+
+		// exact classes only, subclasses can match differently.
+		if ( c == ShapedRecipes.class )
+			inputs = ((ShapedRecipes) r).recipeItems;
+		else if ( c == ShapelessRecipes.class )
+			inputs = ((ShapelessRecipes) r).recipeItems.toArray();
+		else if ( c == ShapedOreRecipe.class )
+			inputs = ((ShapedOreRecipe) r).getInput();
+		else if ( c == ShapelessOreRecipe.class )
+			inputs = ((ShapelessOreRecipe) r).getInput().toArray();
+		else
+			return null;
+
+		for (Object o : inputs)
+		{
+			// ore dictionary lists can still grow, those are left to the unindexed recipes.
+			if ( o instanceof ItemStack && ((ItemStack) o).getItem() != null )
+				return ((ItemStack) o).getItem();
+		}
+
+		return null;
+	}
+
+}
@@ -75,6 +75,12 @@ public class AEItemDef
 		return t;
 	}
 
+	@Override
+	public int hashCode()
+	{
+		return myHash;
+	}
+
 	@Override
 	public boolean equals(Object obj)
 	{
@@ -0,0 +1,153 @@
+
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+package appeng.util.item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import net.minecraft.item.Item;
+import net.minecraftforge.oredict.OreDictionary;
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+/**
+ * Running total of the items {@link IItemList#findFuzzy} finds for one filter and mode, kept current from the changes
+ * to the list instead of searching it every time.
+ */
+public class FuzzyTotal
+{
+
+	private final AEItemStack filter;
+	private final FuzzyMode mode;
+
+	// inclusive bounds of the ranges findFuzzy searches, one per ore equivalent.
+	private final List<AEItemStack> low = new ArrayList<AEItemStack>();
+	private final List<AEItemStack> high = new ArrayList<AEItemStack>();
+
+	private long total = 0;
+	private int users = 0;
+
+	public FuzzyTotal(IAEItemStack filter, FuzzyMode mode) {
+		this.filter = (AEItemStack) filter.copy();
+		this.mode = mode;
+
+		if ( this.filter.isOre() )
+		{
+			for (IAEItemStack is : this.filter.def.isOre.getAEEquivalents())
+				addRange( (AEItemStack) is, is.getItemDamage() == OreDictionary.WILDCARD_VALUE );
+		}
+		else
+			addRange( this.filter, false );
+	}
+
+	private void addRange(AEItemStack is, boolean ignoreMeta)
+	{
+		low.add( (AEItemStack) is.getLow( mode, ignoreMeta ) );
+		high.add( (AEItemStack) is.getHigh( mode, ignoreMeta ) );
+	}
+
+	/**
+	 * @return the items the ranges are made of, a change to anything else never matches.
+	 */
+	public List<Item> getItems()
+	{
+		List<Item> items = new ArrayList<Item>();
+		for (AEItemStack is : low)
+		{
+			if ( !items.contains( is.getItem() ) )
+				items.add( is.getItem() );
+		}
+		return items;
+	}
+
+	public boolean matches(IAEItemStack is)
+	{
+		return matches( is, low.size() );
+	}
+
+	private boolean matches(IAEItemStack is, int ranges)
+	{
+		AEItemStack ais = (AEItemStack) is;
+
+		for (int x = 0; x < ranges; x++)
+		{
+			if ( low.get( x ).compareTo( ais ) <= 0 && ais.compareTo( high.get( x ) ) <= 0 )
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * counts the list again, when the changes since the last count are unknown.
+	 */
+	public void recount(IItemList<IAEItemStack> list)
+	{
+		total = 0;
+
+		// ore equivalents can overlap, count everything once.
+		Set<IAEItemStack> counted = Collections.newSetFromMap( new IdentityHashMap<IAEItemStack, Boolean>() );
+		for (IAEItemStack is : list.findFuzzy( filter, mode ))
+		{
+			if ( counted.add( is ) )
+				total += is.getStackSize();
+		}
+	}
+
+	public void add(IAEItemStack difference)
+	{
+		if ( matches( difference ) )
+			total += difference.getStackSize();
+	}
+
+	public long getTotal()
+	{
+		return total;
+	}
+
+	public void acquire()
+	{
+		users++;
+	}
+
+	/**
+	 * @return true once nothing uses the total anymore.
+	 */
+	public boolean release()
+	{
+		return --users <= 0;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return filter.hashCode() ^ mode.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		return obj instanceof FuzzyTotal && ((FuzzyTotal) obj).mode == mode && ((FuzzyTotal) obj).filter.equals( filter );
+	}
+
+}
@@ -0,0 +1,429 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import net.minecraft.item.Item;
+import net.minecraftforge.oredict.OreDictionary;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+
+/**
+ * Item list keyed on {@link AEItemDef}, precise lookups are a single probe into an open addressing table instead of a
+ * walk down a sorted map.
+ *
+ * Fuzzy lookups need the damage ordering of {@link AEItemStack#compareTo(AEItemStack)}, so a sorted index per
+ * {@link Item} is built the first time a fuzzy search happens and kept up to date from then on; lists that are only
+ * ever searched precisely never pay for it.
+ *
+ * Synchronized like {@link ItemList}, storage bus monitors and crafting calculations share lists across threads.
+ * Iterators walk a snapshot of the entries taken when they are created, the list can be changed from any thread while
+ * they are in use; they see the stacks themselves as they are, but not entries added or removed after that.
+ */
+public final class HashItemList implements IItemList<IAEItemStack>
+{
+
+	private static final int MIN_CAPACITY = 16;
+
+	// dense storage, copied before an entry is moved if an iterator may still be walking it.
+	private AEItemStack[] entries = new AEItemStack[MIN_CAPACITY];
+	private int count = 0;
+	private boolean shared = false;
+
+	// linear probing table holding entry index + 1, 0 is an empty bucket.
+	private int[] buckets = new int[MIN_CAPACITY * 2];
+
+	private Map<Item, NavigableMap<AEItemStack, IAEItemStack>> fuzzyIndex;
+
+	private static int spread(int hash)
+	{
+		int h = hash * 0x9E3779B9;
+		return h ^ ( h >>> 16 );
+	}
+
+	private int indexOf(AEItemDef def)
+	{
+		int mask = buckets.length - 1;
+		int slot = spread( def.myHash ) & mask;
+
+		while ( true )
+		{
+			int pos = buckets[slot];
+			if ( pos == 0 )
+				return -1;
+
+			AEItemDef other = entries[pos - 1].def;
+			if ( other.myHash == def.myHash && other.equals( def ) )
+				return pos - 1;
+
+			slot = ( slot + 1 ) & mask;
+		}
+	}
+
+	private int slotOf(int pos)
+	{
+		int mask = buckets.length - 1;
+		int slot = spread( entries[pos].def.myHash ) & mask;
+
+		while ( buckets[slot] != pos + 1 )
+			slot = ( slot + 1 ) & mask;
+
+		return slot;
+	}
+
+	private void link(int pos)
+	{
+		int mask = buckets.length - 1;
+		int slot = spread( entries[pos].def.myHash ) & mask;
+
+		while ( buckets[slot] != 0 )
+			slot = ( slot + 1 ) & mask;
+
+		buckets[slot] = pos + 1;
+	}
+
+	private void unlink(int slot)
+	{
+		int mask = buckets.length - 1;
+		int hole = slot;
+		int i = ( hole + 1 ) & mask;
+
+		// backward shift deletion, keeps every probe chain intact without tombstones.
+		while ( buckets[i] != 0 )
+		{
+			int home = spread( entries[buckets[i] - 1].def.myHash ) & mask;
+			if ( ( ( i - home ) & mask ) >= ( ( i - hole ) & mask ) )
+			{
+				buckets[hole] = buckets[i];
+				hole = i;
+			}
+
+			i = ( i + 1 ) & mask;
+		}
+
+		buckets[hole] = 0;
+	}
+
+	private void put(AEItemStack stack)
+	{
+		if ( count == entries.length )
+		{
+			AEItemStack[] larger = new AEItemStack[entries.length << 1];
+			System.arraycopy( entries, 0, larger, 0, count );
+			entries = larger;
+			shared = false;
+		}
+
+		if ( ( count + 1 ) << 1 > buckets.length )
+		{
+			buckets = new int[buckets.length << 1];
+			for ( int x = 0; x < count; x++ )
+				link( x );
+		}
+
+		entries[count] = stack;
+		link( count );
+		count++;
+
+		if ( fuzzyIndex != null )
+			indexFuzzy( stack );
+	}
+
+	private void removeAt(int pos)
+	{
+		AEItemStack removed = entries[pos];
+		unlink( slotOf( pos ) );
+
+		// only the first removal after an iterator was created pays for the copy.
+		if ( shared )
+		{
+			entries = entries.clone();
+			shared = false;
+		}
+
+		int last = count - 1;
+		if ( pos != last )
+		{
+			int slot = slotOf( last );
+			entries[pos] = entries[last];
+			buckets[slot] = pos + 1;
+		}
+
+		entries[last] = null;
+		count--;
+
+		if ( fuzzyIndex != null )
+		{
+			NavigableMap<AEItemStack, IAEItemStack> sorted = fuzzyIndex.get( removed.getItem() );
+			if ( sorted != null )
+			{
+				sorted.remove( removed );
+				if ( sorted.isEmpty() )
+					fuzzyIndex.remove( removed.getItem() );
+			}
+		}
+	}
+
+	private void indexFuzzy(AEItemStack stack)
+	{
+		NavigableMap<AEItemStack, IAEItemStack> sorted = fuzzyIndex.get( stack.getItem() );
+		if ( sorted == null )
+			fuzzyIndex.put( stack.getItem(), sorted = new TreeMap<AEItemStack, IAEItemStack>() );
+
+		sorted.put( stack, stack );
+	}
+
+	private AEItemStack get(IAEItemStack stack)
+	{
+		int pos = indexOf( ( ( AEItemStack ) stack ).def );
+		return pos < 0 ? null : entries[pos];
+	}
+
+	@Override
+	synchronized public void add(IAEItemStack option)
+	{
+		if ( option == null )
+			return;
+
+		AEItemStack st = get( option );
+
+		if ( st != null )
+		{
+			st.add( option );
+			return;
+		}
+
+		put( ( AEItemStack ) option.copy() );
+	}
+
+	@Override
+	synchronized public void addStorage(IAEItemStack option)
+	{
+		if ( option == null )
+			return;
+
+		AEItemStack st = get( option );
+
+		if ( st != null )
+		{
+			st.incStackSize( option.getStackSize() );
+			return;
+		}
+
+		put( ( AEItemStack ) option.copy() );
+	}
+
+	@Override
+	synchronized public void addCrafting(IAEItemStack option)
+	{
+		if ( option == null )
+			return;
+
+		AEItemStack st = get( option );
+
+		if ( st != null )
+		{
+			st.setCraftable( true );
+			return;
+		}
+
+		AEItemStack opt = ( AEItemStack ) option.copy();
+		opt.setStackSize( 0 );
+		opt.setCraftable( true );
+
+		put( opt );
+	}
+
+	@Override
+	synchronized public void addRequestable(IAEItemStack option)
+	{
+		if ( option == null )
+			return;
+
+		AEItemStack st = get( option );
+
+		if ( st != null )
+		{
+			st.setCountRequestable( st.getCountRequestable() + option.getCountRequestable() );
+			return;
+		}
+
+		AEItemStack opt = ( AEItemStack ) option.copy();
+		opt.setStackSize( 0 );
+		opt.setCraftable( false );
+
+		put( opt );
+	}
+
+	@Override
+	synchronized public IAEItemStack getFirstItem()
+	{
+		for ( IAEItemStack stackType : this )
+		{
+			return stackType;
+		}
+		return null;
+	}
+
+	@Override
+	synchronized public void resetStatus()
+	{
+		for ( IAEItemStack i : this )
+			i.reset();
+	}
+
+	@Override
+	synchronized public Iterator<IAEItemStack> iterator()
+	{
+		shared = true;
+		return new MeaningfulIterator<IAEItemStack>( new EntryIterator( entries, count ) );
+	}
+
+	@Override
+	synchronized public IAEItemStack findPrecise(IAEItemStack i)
+	{
+		if ( i == null )
+			return null;
+
+		return get( i );
+	}
+
+	@Override
+	synchronized public int size()
+	{
+		return count;
+	}
+
+	@Override
+	synchronized public boolean isEmpty()
+	{
+		return !iterator().hasNext();
+	}
+
+	synchronized public Collection<IAEItemStack> findFuzzyDamage(AEItemStack filter, FuzzyMode fuzzy, boolean ignoreMeta)
+	{
+		if ( fuzzyIndex == null )
+		{
+			fuzzyIndex = new IdentityHashMap<Item, NavigableMap<AEItemStack, IAEItemStack>>();
+			for ( int x = 0; x < count; x++ )
+				indexFuzzy( entries[x] );
+		}
+
+		NavigableMap<AEItemStack, IAEItemStack> sorted = fuzzyIndex.get( filter.getItem() );
+		if ( sorted == null )
+			return Collections.emptyList();
+
+		AEItemStack low = ( AEItemStack ) filter.getLow( fuzzy, ignoreMeta );
+		AEItemStack high = ( AEItemStack ) filter.getHigh( fuzzy, ignoreMeta );
+
+		// copied, callers are free to modify the list while walking the result.
+		return new ArrayList<IAEItemStack>( sorted.subMap( low, true, high, true ).descendingMap().values() );
+	}
+
+	@Override
+	synchronized public Collection<IAEItemStack> findFuzzy(IAEItemStack filter, FuzzyMode fuzzy)
+	{
+		if ( filter == null )
+			return new ArrayList<IAEItemStack>();
+
+		AEItemStack ais = ( AEItemStack ) filter;
+		if ( ais.isOre() )
+		{
+			OreReference or = ais.def.isOre;
+			if ( or.getAEEquivalents().size() == 1 )
+			{
+				IAEItemStack is = or.getAEEquivalents().get( 0 );
+				return findFuzzyDamage( ( AEItemStack ) is, fuzzy, is.getItemDamage() == OreDictionary.WILDCARD_VALUE );
+			}
+			else
+			{
+				Collection<IAEItemStack> output = new LinkedList<IAEItemStack>();
+
+				for ( IAEItemStack is : or.getAEEquivalents() )
+					output.addAll( findFuzzyDamage( ( AEItemStack ) is, fuzzy, is.getItemDamage() == OreDictionary.WILDCARD_VALUE ) );
+
+				return output;
+			}
+		}
+
+		return findFuzzyDamage( ais, fuzzy, false );
+	}
+
+	private class EntryIterator implements Iterator<IAEItemStack>
+	{
+
+		private final AEItemStack[] snapshot;
+		private int cursor;
+		private AEItemStack current;
+
+		public EntryIterator(AEItemStack[] snapshot, int count)
+		{
+			this.snapshot = snapshot;
+			this.cursor = count;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return cursor > 0;
+		}
+
+		@Override
+		public IAEItemStack next()
+		{
+			if ( !hasNext() )
+				throw new NoSuchElementException();
+
+			current = snapshot[--cursor];
+			return current;
+		}
+
+		@Override
+		public void remove()
+		{
+			if ( current == null )
+				throw new IllegalStateException();
+
+			// the entry may have been removed, or replaced by a new stack of the same item, since the snapshot was taken.
+			synchronized (HashItemList.this)
+			{
+				int pos = indexOf( current.def );
+				if ( pos >= 0 && entries[pos] == current )
+					removeAt( pos );
+			}
+			current = null;
+		}
+
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.core.sync.packets;
+
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.core.AEConfig;
+import appeng.util.item.AEItemStack;
+
+
+/**
+ * Times encoding and decoding a terminal snapshot the way a terminal sends it when opened, one packet after another
+ * until every item is written.
+ *
+ * Run with <code>gradlew packetBenchmark</code>, extra arguments go in <code>-PbenchmarkArgs="..."</code>:
+ * <code>-warmup n</code>, <code>-iterations n</code>, <code>-items n</code> and the compression levels to compare, 1
+ * and 6 by default.
+ */
+public class InventoryPacketBenchmark
+{
+
+	private final int warmup;
+	private final int iterations;
+	private final List<IAEItemStack> items;
+
+	public InventoryPacketBenchmark(int warmup, int iterations, List<IAEItemStack> items)
+	{
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.items = items;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		int warmup = 5;
+		int iterations = 20;
+		int count = 20000;
+		List<Integer> levels = new ArrayList<Integer>();
+
+		for (int x = 0; x < args.length; x++)
+		{
+			if ( args[x].equals( "-warmup" ) )
+				warmup = Integer.parseInt( args[++x] );
+			else if ( args[x].equals( "-iterations" ) )
+				iterations = Integer.parseInt( args[++x] );
+			else if ( args[x].equals( "-items" ) )
+				count = Integer.parseInt( args[++x] );
+			else
+				levels.add( Integer.parseInt( args[x] ) );
+		}
+
+		if ( levels.isEmpty() )
+		{
+			levels.add( 1 );
+			levels.add( 6 );
+		}
+
+		// registers the vanilla items the snapshot is made of.
+		Bootstrap.func_151354_b();
+
+		File configDir = new File( "benchmark" );
+		configDir.mkdirs();
+		AEConfig.instance = new AEConfig( configDir.getPath() + File.separator );
+
+		InventoryPacketBenchmark benchmark = new InventoryPacketBenchmark( warmup, iterations, createItems( count ) );
+		System.out.println( String.format( "%-8s %8s %12s %12s %10s %12s", "level", "items", "encode ms", "decode ms", "packets", "bytes" ) );
+
+		for (int level : levels)
+		{
+			AEConfig.instance.packetCompressionLevel = level;
+			benchmark.run( level );
+		}
+	}
+
+	/**
+	 * every registered item with increasing damage values until there are enough distinct stacks.
+	 */
+	private static List<IAEItemStack> createItems(int count)
+	{
+		List<IAEItemStack> items = new ArrayList<IAEItemStack>();
+
+		for (int damage = 0; items.size() < count; damage++)
+		{
+			for (Object o : Item.itemRegistry)
+			{
+				if ( items.size() >= count )
+					break;
+
+				IAEItemStack is = AEItemStack.create( new ItemStack( (Item) o, 1, damage ) );
+				is.setStackSize( 1 + items.size() * 37L );
+				items.add( is );
+			}
+		}
+
+		return items;
+	}
+
+	public void run(int level) throws IOException
+	{
+		for (int x = 0; x < warmup; x++)
+			decode( encode() );
+
+		long encodeTime = 0;
+		long decodeTime = 0;
+		int packets = 0;
+		long bytes = 0;
+
+		for (int x = 0; x < iterations; x++)
+		{
+			long start = System.nanoTime();
+			List<ByteBuf> encoded = encode();
+			long middle = System.nanoTime();
+			decode( encoded );
+			long end = System.nanoTime();
+
+			encodeTime += middle - start;
+			decodeTime += end - middle;
+			packets = encoded.size();
+			bytes = 0;
+			for (ByteBuf buf : encoded)
+				bytes += buf.readableBytes();
+		}
+
+		System.out.println( String.format( "%-8d %8d %12.2f %12.2f %10d %12d", level, items.size(), encodeTime / 1e6 / iterations, decodeTime / 1e6
+				/ iterations, packets, bytes ) );
+	}
+
+	private List<ByteBuf> encode() throws IOException
+	{
+		List<ByteBuf> encoded = new ArrayList<ByteBuf>();
+		PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate();
+
+		for (IAEItemStack send : items)
+		{
+			try
+			{
+				piu.appendItem( send );
+			}
+			catch (BufferOverflowException boe)
+			{
+				encoded.add( piu.finish() );
+
+				piu = new PacketMEInventoryUpdate();
+				piu.appendItem( send );
+			}
+		}
+
+		encoded.add( piu.finish() );
+		return encoded;
+	}
+
+	private void decode(List<ByteBuf> encoded) throws IOException
+	{
+		int decoded = 0;
+
+		for (ByteBuf buf : encoded)
+		{
+			ByteBuf stream = buf.duplicate();
+			stream.readInt(); // packet id, read by the packet handler in game.
+			decoded += new PacketMEInventoryUpdate( stream ).list.size();
+		}
+
+		if ( decoded != items.size() )
+			throw new IllegalStateException( "Decoded " + decoded + " of " + items.size() + " items." );
+	}
+
+}
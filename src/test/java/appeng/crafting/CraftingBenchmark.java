@@ -0,0 +1,183 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.init.Bootstrap;
+
+import appeng.core.AEConfig;
+
+
+/**
+ * Times complete crafting calculations, tree construction included, against synthetic pattern graphs without a world.
+ * Jobs run on a thread of their own, stepped by the calling thread the way the server thread steps them.
+ *
+ * Run with <code>gradlew craftingBenchmark</code>, extra arguments go in <code>-PbenchmarkArgs="..."</code>:
+ * <code>-warmup n</code>, <code>-iterations n</code> and the scenarios to run ( wide, deep, cyclic, fuzzy ), all of
+ * them by default.
+ */
+public class CraftingBenchmark
+{
+
+	private final int warmup;
+	private final int iterations;
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	public CraftingBenchmark(int warmup, int iterations)
+	{
+		this.warmup = warmup;
+		this.iterations = iterations;
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		int warmup = 5;
+		int iterations = 20;
+		List<String> scenarios = new ArrayList<String>();
+
+		for (int x = 0; x < args.length; x++)
+		{
+			if ( args[x].equals( "-warmup" ) )
+				warmup = Integer.parseInt( args[++x] );
+			else if ( args[x].equals( "-iterations" ) )
+				iterations = Integer.parseInt( args[++x] );
+			else
+				scenarios.add( args[x] );
+		}
+
+		if ( scenarios.isEmpty() )
+		{
+			scenarios.add( "wide" );
+			scenarios.add( "deep" );
+			scenarios.add( "cyclic" );
+			scenarios.add( "fuzzy" );
+		}
+
+		// registers the vanilla blocks and items the synthetic patterns are made of.
+		Bootstrap.func_151354_b();
+
+		File configDir = new File( "benchmark" );
+		configDir.mkdirs();
+		AEConfig.instance = new AEConfig( configDir.getPath() + File.separator );
+
+		CraftingBenchmark benchmark = new CraftingBenchmark( warmup, iterations );
+		System.out.println( String.format( "%-16s %12s %14s %10s %12s", "scenario", "ops/s", "alloc B/op", "nodes", "job bytes" ) );
+
+		for (String scenario : scenarios)
+			benchmark.run( create( scenario ) );
+	}
+
+	private static CraftingFixture create(String scenario)
+	{
+		if ( scenario.equals( "wide" ) )
+			return CraftingFixture.wide( 256, 4, 1000 );
+
+		if ( scenario.equals( "deep" ) )
+			return CraftingFixture.deep( 64, 1000 );
+
+		if ( scenario.equals( "cyclic" ) )
+			return CraftingFixture.cyclic( 12, 64 );
+
+		if ( scenario.equals( "fuzzy" ) )
+			return CraftingFixture.fuzzy( 9, 16, 1000 );
+
+		throw new IllegalArgumentException( "Unknown scenario " + scenario );
+	}
+
+	/**
+	 * runs a job and counts what its thread allocated.
+	 */
+	private class MeasuredJob implements Runnable
+	{
+
+		final CraftingJob job;
+		long allocated = 0;
+
+		public MeasuredJob(CraftingJob job)
+		{
+			this.job = job;
+		}
+
+		@Override
+		public void run()
+		{
+			long before = allocatedBytes();
+			job.run();
+			allocated = before < 0 ? -1 : allocatedBytes() - before;
+		}
+
+	}
+
+	public void run(CraftingFixture fixture) throws InterruptedException
+	{
+		for (int x = 0; x < warmup; x++)
+		{
+			CraftingJob job = fixture.createJob();
+			CraftingFixture.runStepped( job, job, Integer.MAX_VALUE );
+		}
+
+		long allocated = 0;
+		long start = System.nanoTime();
+		int peakNodes = 0;
+		long jobBytes = 0;
+		boolean missing = false;
+
+		for (int x = 0; x < iterations; x++)
+		{
+			CraftingJob job = fixture.createJob();
+			MeasuredJob measured = new MeasuredJob( job );
+			CraftingFixture.runStepped( job, measured, Integer.MAX_VALUE );
+
+			allocated = allocated < 0 || measured.allocated < 0 ? -1 : allocated + measured.allocated;
+
+			peakNodes = Math.max( peakNodes, fixture.getTreeSize() );
+			jobBytes = job.getByteTotal();
+			missing |= job.isSimulation();
+		}
+
+		long elapsed = System.nanoTime() - start;
+		String perOp = allocated < 0 ? "n/a" : String.valueOf( allocated / iterations );
+
+		System.out.println( String.format( "%-16s %12.1f %14s %10d %12d%s", fixture.name, iterations * 1e9 / elapsed,
+				perOp, peakNodes, jobBytes, missing ? " (missing items)" : "" ) );
+	}
+
+	/**
+	 * @return bytes allocated by the calling thread so far, or a negative number when the jvm can't tell.
+	 */
+	private long allocatedBytes()
+	{
+		if ( threads instanceof com.sun.management.ThreadMXBean )
+		{
+			com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+			if ( hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled() )
+				return hotspot.getThreadAllocatedBytes( Thread.currentThread().getId() );
+		}
+
+		return -1;
+	}
+
+}
@@ -0,0 +1,500 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+import net.minecraftforge.oredict.OreDictionary;
+
+import appeng.api.AEApi;
+import appeng.api.config.Actionable;
+import appeng.api.networking.IGrid;
+import appeng.api.networking.IGridHost;
+import appeng.api.networking.crafting.ICraftingCallback;
+import appeng.api.networking.crafting.ICraftingGrid;
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.networking.crafting.ICraftingProvider;
+import appeng.api.networking.crafting.ICraftingProviderHelper;
+import appeng.api.networking.energy.IEnergyGrid;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.networking.storage.IStorageGrid;
+import appeng.api.storage.IMEMonitor;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.cache.CraftingGridCache;
+
+
+/**
+ * A network reduced to what a {@link CraftingJob} reads: an item list standing in for storage and a real
+ * {@link CraftingGridCache} fed with {@link SyntheticPattern}s. The rest of the grid is answered by proxies.
+ */
+public class CraftingFixture
+{
+
+	private static final List<Item> ITEMS = new ArrayList<Item>();
+
+	final String name;
+	IAEItemStack request;
+
+	private final IItemList<IAEItemStack> storage = AEApi.instance().storage().createItemList();
+	private final List<ICraftingPatternDetails> patterns = new ArrayList<ICraftingPatternDetails>();
+	private final IGrid grid;
+	private final BenchmarkCraftingGrid craftingGrid;
+	private int nextType = 0;
+	private int treeSize = 0;
+
+	private CraftingFixture(String name)
+	{
+		this.name = name;
+
+		Map<Class<?>, Object> caches = new HashMap<Class<?>, Object>();
+		this.grid = proxy( IGrid.class, new CacheLookup( caches ) );
+		this.craftingGrid = new BenchmarkCraftingGrid( grid );
+
+		caches.put( ICraftingGrid.class, craftingGrid );
+		caches.put( IStorageGrid.class, proxy( IStorageGrid.class, new StorageLookup() ) );
+		caches.put( IEnergyGrid.class, proxy( IEnergyGrid.class, new Defaults() ) );
+	}
+
+	public CraftingJob createJob()
+	{
+		return createJob( null );
+	}
+
+	public CraftingJob createJob(ICraftingCallback callback)
+	{
+		craftingGrid.treeNodes = 0;
+		CraftingJob job = new CraftingJob( null, grid, new BaseActionSource(), request, callback );
+		treeSize = craftingGrid.treeNodes;
+		return job;
+	}
+
+	/**
+	 * @return number of nodes in the crafting tree of the last job created.
+	 */
+	public int getTreeSize()
+	{
+		return treeSize;
+	}
+
+	/**
+	 * runs the job on a thread of its own and steps it from the calling thread, the way the server thread steps
+	 * crafting calculations.
+	 *
+	 * @param worker runs the job, it may wrap the job to measure it
+	 * @return the number of steps it took
+	 */
+	public static int runStepped(CraftingJob job, Runnable worker, int millisPerStep) throws InterruptedException
+	{
+		Thread thread = new Thread( worker, "Crafting calculation" );
+		thread.start();
+
+		int steps = 0;
+		while (job.simulateFor( millisPerStep ))
+			steps++;
+
+		thread.join();
+		return steps;
+	}
+
+	/**
+	 * one pattern with a wide spread of inputs, each made from a few raw items in storage.
+	 */
+	public static CraftingFixture wide(int width, int fan, long amount)
+	{
+		CraftingFixture f = new CraftingFixture( "wide-" + width + "x" + fan );
+		IAEItemStack target = f.type( amount );
+
+		IAEItemStack[] parts = new IAEItemStack[width];
+		for (int x = 0; x < width; x++)
+		{
+			parts[x] = f.type( 1 );
+
+			IAEItemStack[] raw = new IAEItemStack[fan];
+			for (int y = 0; y < fan; y++)
+				raw[y] = f.stored( 2, Integer.MAX_VALUE );
+
+			f.patterns.add( new SyntheticPattern( false, parts[x], raw ) );
+		}
+
+		f.patterns.add( new SyntheticPattern( false, target.copy().setStackSize( 1 ), parts ) );
+		return f.finish( target );
+	}
+
+	/**
+	 * a single long chain, every step needs the previous one and a raw item.
+	 */
+	public static CraftingFixture deep(int depth, long amount)
+	{
+		CraftingFixture f = new CraftingFixture( "deep-" + depth );
+		IAEItemStack previous = f.stored( 1, Integer.MAX_VALUE );
+
+		for (int x = 0; x < depth; x++)
+		{
+			IAEItemStack next = f.type( 1 );
+			f.patterns.add( new SyntheticPattern( false, next, previous, f.stored( 1, Integer.MAX_VALUE ) ) );
+			previous = next;
+		}
+
+		return f.finish( previous.copy().setStackSize( amount ) );
+	}
+
+	/**
+	 * crafting patterns in a ring, each item has a preferred pattern made from the next item in the ring and a
+	 * fallback made from raw items. Storage runs short so branches fail and are retried with substitutes.
+	 */
+	public static CraftingFixture cyclic(int size, long amount)
+	{
+		CraftingFixture f = new CraftingFixture( "cyclic-" + size );
+
+		IAEItemStack[] ring = new IAEItemStack[size];
+		for (int x = 0; x < size; x++)
+			ring[x] = f.type( 1 );
+
+		for (int x = 0; x < size; x++)
+		{
+			IAEItemStack raw = f.stored( 1, amount / 2 );
+			IAEItemStack alternative = f.variant( raw, amount );
+
+			f.patterns.add( new SyntheticPattern( true, ring[x], ring[(x + 1) % size], raw ).substitute( 1, alternative ).priority( 1 ) );
+			f.patterns.add( new SyntheticPattern( true, ring[x], raw, raw ).substitute( 0, alternative ).substitute( 1, alternative ) );
+		}
+
+		return f.finish( ring[0].copy().setStackSize( amount ) );
+	}
+
+	/**
+	 * a crafting pattern whose every slot is an ore dictionary entry, with the matching items spread thinly over many
+	 * variants so each slot has to be gathered from several stacks.
+	 */
+	public static CraftingFixture fuzzy(int ores, int variants, long amount)
+	{
+		CraftingFixture f = new CraftingFixture( "fuzzy-" + ores + "x" + variants );
+		IAEItemStack target = f.type( 1 );
+
+		IAEItemStack[] slots = new IAEItemStack[Math.min( 9, ores )];
+		IAEItemStack[][] alternatives = new IAEItemStack[slots.length][variants];
+
+		for (int x = 0; x < slots.length; x++)
+		{
+			String ore = "benchmarkOre" + f.name + x;
+			ItemStack[] raw = new ItemStack[variants];
+
+			// registered before any stack is created, the ore lookup is resolved and cached on creation.
+			for (int y = 0; y < variants; y++)
+			{
+				raw[y] = f.nextStack();
+				OreDictionary.registerOre( ore, raw[y] );
+			}
+
+			for (int y = 0; y < variants; y++)
+			{
+				alternatives[x][y] = AEApi.instance().storage().createItemStack( raw[y] );
+				f.storage.add( alternatives[x][y].copy().setStackSize( amount / variants + 1 ) );
+			}
+
+			slots[x] = alternatives[x][0];
+		}
+
+		SyntheticPattern pattern = new SyntheticPattern( true, target, slots );
+		for (int x = 0; x < slots.length; x++)
+			for (IAEItemStack alternative : alternatives[x])
+				pattern.substitute( x, alternative );
+
+		f.patterns.add( pattern );
+		return f.finish( target.copy().setStackSize( amount ) );
+	}
+
+	private CraftingFixture finish(IAEItemStack target)
+	{
+		request = target;
+		craftingGrid.addNode( null, proxy( ICraftingProvider.class, new PatternProvider( patterns ), IGridHost.class ) );
+		return this;
+	}
+
+	private ItemStack nextStack()
+	{
+		if ( ITEMS.isEmpty() )
+		{
+			for (Object item : Item.itemRegistry)
+				ITEMS.add( (Item) item );
+		}
+
+		int id = nextType++;
+		return new ItemStack( ITEMS.get( id % ITEMS.size() ), 1, id / ITEMS.size() );
+	}
+
+	private IAEItemStack type(long size)
+	{
+		IAEItemStack ais = AEApi.instance().storage().createItemStack( nextStack() );
+		ais.setStackSize( size );
+		return ais;
+	}
+
+	private IAEItemStack stored(long size, long available)
+	{
+		IAEItemStack is = type( size );
+		storage.add( is.copy().setStackSize( available ) );
+		return is;
+	}
+
+	/**
+	 * same item with a different damage value, found by the fuzzy lookups crafting patterns do for their inputs.
+	 */
+	private IAEItemStack variant(IAEItemStack of, long available)
+	{
+		ItemStack is = of.getItemStack();
+		is.setItemDamage( is.getItemDamage() + 1 + ITEMS.size() * 1000 );
+
+		IAEItemStack ais = AEApi.instance().storage().createItemStack( is );
+		storage.add( ais.copy().setStackSize( available ) );
+		return ais;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> iface, InvocationHandler handler, Class<?>... extra)
+	{
+		Class<?>[] interfaces = new Class<?>[extra.length + 1];
+		interfaces[0] = iface;
+		System.arraycopy( extra, 0, interfaces, 1, extra.length );
+
+		return (T) Proxy.newProxyInstance( CraftingFixture.class.getClassLoader(), interfaces, handler );
+	}
+
+	/**
+	 * crafting trees normally fire a crafting event into the world to analyse each pattern, there is no world here.
+	 * Patterns are analysed as processing patterns instead, which leaves out only the crafting event.
+	 */
+	private static class BenchmarkCraftingGrid extends CraftingGridCache
+	{
+
+		private final Map<ICraftingPatternDetails, PatternExpansion> expansions = new HashMap<ICraftingPatternDetails, PatternExpansion>();
+
+		/**
+		 * every tree node asks whether its item can be emitted exactly once.
+		 */
+		int treeNodes = 0;
+
+		public BenchmarkCraftingGrid(IGrid grid)
+		{
+			super( grid );
+			afterCacheConstruction( null );
+		}
+
+		@Override
+		public boolean canEmitFor(IAEItemStack someItem)
+		{
+			treeNodes++;
+			return super.canEmitFor( someItem );
+		}
+
+		@Override
+		public PatternExpansion getExpansion(ICraftingPatternDetails details, World world)
+		{
+			PatternExpansion expansion = expansions.get( details );
+
+			if ( expansion == null )
+				expansions.put( details, expansion = new PatternExpansion( proxy( ICraftingPatternDetails.class, new Uncraftable( details ) ), world ) );
+
+			return expansion;
+		}
+
+	}
+
+	/**
+	 * a pattern passed off as a processing pattern.
+	 */
+	private static class Uncraftable implements InvocationHandler
+	{
+
+		private final ICraftingPatternDetails details;
+
+		public Uncraftable(ICraftingPatternDetails details)
+		{
+			this.details = details;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if ( method.getName().equals( "isCraftable" ) )
+				return false;
+
+			try
+			{
+				return method.invoke( details, args );
+			}
+			catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+		}
+
+	}
+
+	private static class Defaults implements InvocationHandler
+	{
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if ( method.getName().equals( "equals" ) )
+				return proxy == args[0];
+
+			if ( method.getName().equals( "hashCode" ) )
+				return System.identityHashCode( proxy );
+
+			if ( method.getName().equals( "toString" ) )
+				return method.getDeclaringClass().getSimpleName() + "@" + System.identityHashCode( proxy );
+
+			Class<?> type = method.getReturnType();
+			if ( type == boolean.class )
+				return false;
+			if ( type == int.class )
+				return 0;
+			if ( type == long.class )
+				return 0L;
+			if ( type == double.class )
+				return 0.0;
+			if ( type == float.class )
+				return 0.0f;
+
+			return null;
+		}
+
+	}
+
+	private static class CacheLookup extends Defaults
+	{
+
+		private final Map<Class<?>, Object> caches;
+
+		public CacheLookup(Map<Class<?>, Object> caches)
+		{
+			this.caches = caches;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if ( method.getName().equals( "getCache" ) )
+				return caches.get( args[0] );
+
+			return super.invoke( proxy, method, args );
+		}
+
+	}
+
+	private class StorageLookup extends Defaults
+	{
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if ( method.getName().equals( "getItemInventory" ) )
+				return proxy( IMEMonitor.class, new StorageMonitor() );
+
+			return super.invoke( proxy, method, args );
+		}
+
+	}
+
+	/**
+	 * read only view of the fixture's storage, crafting jobs only ever simulate against the network.
+	 */
+	private class StorageMonitor extends Defaults
+	{
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			String name = method.getName();
+
+			if ( name.equals( "getStorageList" ) )
+				return storage;
+
+			if ( name.equals( "getAvailableItems" ) )
+			{
+				@SuppressWarnings("unchecked")
+				IItemList<IAEItemStack> out = (IItemList<IAEItemStack>) args[0];
+				for (IAEItemStack is : storage)
+					out.add( is );
+				return out;
+			}
+
+			if ( name.equals( "extractItems" ) )
+			{
+				if ( args[1] != Actionable.SIMULATE )
+					throw new UnsupportedOperationException( "benchmark storage is read only" );
+
+				IAEItemStack request = (IAEItemStack) args[0];
+				IAEItemStack held = storage.findPrecise( request );
+				if ( held == null || held.getStackSize() <= 0 )
+					return null;
+
+				return request.copy().setStackSize( Math.min( held.getStackSize(), request.getStackSize() ) );
+			}
+
+			if ( name.equals( "injectItems" ) )
+				return args[0];
+
+			return super.invoke( proxy, method, args );
+		}
+
+	}
+
+	private static class PatternProvider extends Defaults
+	{
+
+		private final List<ICraftingPatternDetails> patterns;
+
+		public PatternProvider(List<ICraftingPatternDetails> patterns)
+		{
+			this.patterns = patterns;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			if ( method.getName().equals( "provideCrafting" ) )
+			{
+				ICraftingProviderHelper helper = (ICraftingProviderHelper) args[0];
+				for (ICraftingPatternDetails details : patterns)
+					helper.addCraftingOption( (ICraftingProvider) proxy, details );
+
+				return null;
+			}
+
+			return super.invoke( proxy, method, args );
+		}
+
+	}
+
+}
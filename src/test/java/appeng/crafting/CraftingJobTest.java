@@ -0,0 +1,174 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.minecraft.init.Bootstrap;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import appeng.api.networking.crafting.ICraftingCallback;
+import appeng.api.networking.crafting.ICraftingJob;
+import appeng.core.AEConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests for how {@link CraftingJob} is stepped by the server thread
+ */
+public class CraftingJobTest
+{
+
+	private static class Callback implements ICraftingCallback
+	{
+
+		final List<Thread> calledOn = Collections.synchronizedList( new ArrayList<Thread>() );
+
+		@Override
+		public void calculationComplete(ICraftingJob job)
+		{
+			calledOn.add( Thread.currentThread() );
+		}
+
+	}
+
+	@BeforeClass
+	public static void setUp()
+	{
+		Bootstrap.func_151354_b();
+
+		File configDir = new File( System.getProperty( "java.io.tmpdir" ), "ae2-crafting-test" );
+		configDir.mkdirs();
+		AEConfig.instance = new AEConfig( configDir.getPath() + File.separator );
+	}
+
+	@After
+	public void resetConfig()
+	{
+		AEConfig.instance.craftingCalculationConcurrent = false;
+	}
+
+	@Test
+	public void testConcurrent_offByDefault()
+	{
+		assertFalse( new AEConfig( new File( System.getProperty( "java.io.tmpdir" ), "ae2-crafting-default" ).getPath() + File.separator ).craftingCalculationConcurrent );
+	}
+
+	@Test(timeout = 30000)
+	public void testSteppedJob_waitsForServerThread() throws InterruptedException
+	{
+		CraftingJob job = CraftingFixture.deep( 16, 100 ).createJob();
+
+		Thread worker = new Thread( job );
+		worker.start();
+
+		// nothing steps it, so it has to park before doing any work.
+		awaitParked( worker );
+		assertFalse( job.isDone() );
+
+		stepToEnd( job, worker );
+		assertFalse( job.isSimulation() );
+	}
+
+	@Test(timeout = 30000)
+	public void testSteppedJob_callsBackWhileStepped() throws InterruptedException
+	{
+		Callback callback = new Callback();
+		CraftingJob job = CraftingFixture.cyclic( 6, 16 ).createJob( callback );
+
+		CraftingFixture.runStepped( job, job, 1 );
+
+		// called on the job's thread while the stepping thread waited for it.
+		assertEquals( 1, callback.calledOn.size() );
+		assertFalse( callback.calledOn.get( 0 ) == Thread.currentThread() );
+	}
+
+	@Test(timeout = 30000)
+	public void testCraftingPatterns_stayInLockstep() throws InterruptedException
+	{
+		AEConfig.instance.craftingCalculationConcurrent = true;
+
+		// substitutes are checked against crafting recipes, that can't leave the server thread.
+		CraftingJob job = CraftingFixture.cyclic( 6, 16 ).createJob();
+		assertTrue( job.tree.needsServerThread() );
+
+		Thread worker = new Thread( job );
+		worker.start();
+
+		awaitParked( worker );
+		assertFalse( job.isDone() );
+
+		stepToEnd( job, worker );
+	}
+
+	@Test(timeout = 30000)
+	public void testConcurrentJob_handsCallbackToServerThread() throws InterruptedException
+	{
+		AEConfig.instance.craftingCalculationConcurrent = true;
+
+		Callback callback = new Callback();
+		CraftingJob job = CraftingFixture.deep( 16, 100 ).createJob( callback );
+		assertFalse( job.tree.needsServerThread() );
+
+		// runs to the end without being stepped.
+		Thread worker = new Thread( job );
+		worker.start();
+		worker.join();
+
+		assertTrue( job.isDone() );
+
+		// queued for the server thread instead of being called from the calculation thread.
+		assertTrue( callback.calledOn.isEmpty() );
+	}
+
+	/**
+	 * waits for the job's thread to park until it is stepped, without relying on how long that takes.
+	 */
+	private static void awaitParked(Thread worker)
+	{
+		while (worker.getState() != Thread.State.WAITING)
+		{
+			assertTrue( worker.isAlive() );
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * steps the job until it is done, every step has to hand control back with the job either parked or finished.
+	 */
+	private static void stepToEnd(CraftingJob job, Thread worker) throws InterruptedException
+	{
+		while (job.simulateFor( 0 ))
+			assertTrue( job.isDone() || worker.getState() == Thread.State.WAITING );
+
+		worker.join();
+		assertTrue( job.isDone() );
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.minecraft.inventory.InventoryCrafting;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+
+import appeng.api.AEApi;
+import appeng.api.networking.crafting.ICraftingPatternDetails;
+import appeng.api.storage.data.IAEItemStack;
+
+
+/**
+ * Pattern built in code instead of from an encoded pattern item, so crafting trees can be built without a world.
+ */
+public class SyntheticPattern implements ICraftingPatternDetails
+{
+
+	private final boolean craftable;
+	private final IAEItemStack[] inputs;
+	private final IAEItemStack[] condensedInputs;
+	private final IAEItemStack[] outputs;
+	private final List<Set<IAEItemStack>> substitutes = new ArrayList<Set<IAEItemStack>>();
+	private int priority = 0;
+
+	/**
+	 * @param craftable true for a crafting table pattern, inputs are then one per grid slot and may be null.
+	 */
+	public SyntheticPattern(boolean craftable, IAEItemStack output, IAEItemStack... inputs)
+	{
+		this.craftable = craftable;
+		this.inputs = inputs;
+		this.outputs = new IAEItemStack[] { output };
+
+		List<IAEItemStack> condensed = new ArrayList<IAEItemStack>();
+		for (IAEItemStack in : inputs)
+		{
+			substitutes.add( new HashSet<IAEItemStack>() );
+
+			if ( in == null )
+				continue;
+
+			boolean merged = false;
+			for (IAEItemStack c : condensed)
+			{
+				if ( c.equals( in ) )
+				{
+					c.incStackSize( in.getStackSize() );
+					merged = true;
+					break;
+				}
+			}
+
+			if ( !merged )
+				condensed.add( in.copy() );
+		}
+
+		this.condensedInputs = condensed.toArray( new IAEItemStack[condensed.size()] );
+	}
+
+	/**
+	 * lets a crafting pattern accept another item in a slot, the way ore dictionary and substitution patterns do.
+	 */
+	public SyntheticPattern substitute(int slot, IAEItemStack alternative)
+	{
+		substitutes.get( slot ).add( alternative );
+		return this;
+	}
+
+	public SyntheticPattern priority(int priority)
+	{
+		this.priority = priority;
+		return this;
+	}
+
+	@Override
+	public ItemStack getPattern()
+	{
+		return null;
+	}
+
+	@Override
+	public boolean isValidItemForSlot(int slotIndex, ItemStack itemStack, World world)
+	{
+		if ( slotIndex < 0 || slotIndex >= inputs.length || inputs[slotIndex] == null || itemStack == null )
+			return false;
+
+		IAEItemStack is = AEApi.instance().storage().createItemStack( itemStack );
+		return inputs[slotIndex].equals( is ) || substitutes.get( slotIndex ).contains( is );
+	}
+
+	@Override
+	public boolean isCraftable()
+	{
+		return craftable;
+	}
+
+	@Override
+	public IAEItemStack[] getInputs()
+	{
+		return inputs;
+	}
+
+	@Override
+	public IAEItemStack[] getCondensedInputs()
+	{
+		return condensedInputs;
+	}
+
+	@Override
+	public IAEItemStack[] getCondensedOutputs()
+	{
+		return outputs;
+	}
+
+	@Override
+	public IAEItemStack[] getOutputs()
+	{
+		return outputs;
+	}
+
+	@Override
+	public boolean canSubstitute()
+	{
+		for (Set<IAEItemStack> s : substitutes)
+			if ( !s.isEmpty() )
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public ItemStack getOutput(InventoryCrafting craftingInv, World world)
+	{
+		return outputs[0].getItemStack();
+	}
+
+	@Override
+	public int getPriority()
+	{
+		return priority;
+	}
+
+	@Override
+	public void setPriority(int priority)
+	{
+		this.priority = priority;
+	}
+
+}
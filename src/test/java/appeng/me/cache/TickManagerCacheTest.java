@@ -0,0 +1,265 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache;
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import appeng.api.networking.IGridHost;
+import appeng.api.networking.IGridNode;
+import appeng.api.networking.ticking.IGridTickable;
+import appeng.api.networking.ticking.TickRateModulation;
+import appeng.api.networking.ticking.TickingRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests for the scheduling done by {@link TickManagerCache}
+ */
+public class TickManagerCacheTest
+{
+
+	/**
+	 * a tickable machine that answers with scripted modulations and records when it was ticked.
+	 */
+	private static class Device implements InvocationHandler
+	{
+
+		final TickingRequest request;
+		final IGridNode node;
+		final IGridHost machine;
+
+		final LinkedList<TickRateModulation> script = new LinkedList<TickRateModulation>();
+		TickRateModulation otherwise = TickRateModulation.SAME;
+
+		final List<Long> ticks = new ArrayList<Long>();
+		final List<Integer> sinceLast = new ArrayList<Integer>();
+		TickManagerCache tm;
+
+		Device(TickingRequest request)
+		{
+			this.request = request;
+			this.node = (IGridNode) Proxy.newProxyInstance( getClass().getClassLoader(), new Class[] { IGridNode.class }, this );
+			this.machine = (IGridHost) Proxy.newProxyInstance( getClass().getClassLoader(), new Class[] { IGridHost.class, IGridTickable.class }, this );
+		}
+
+		Device then(TickRateModulation... mods)
+		{
+			for (TickRateModulation mod : mods)
+				script.add( mod );
+
+			return this;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			if ( method.getName().equals( "getTickingRequest" ) )
+				return request;
+
+			if ( method.getName().equals( "tickingRequest" ) )
+			{
+				ticks.add( tm.getCurrentTick() );
+				sinceLast.add( (Integer) args[1] );
+				return script.isEmpty() ? otherwise : script.removeFirst();
+			}
+
+			if ( method.getName().equals( "hashCode" ) )
+				return System.identityHashCode( proxy );
+
+			if ( method.getName().equals( "equals" ) )
+				return proxy == args[0];
+
+			if ( method.getName().equals( "toString" ) )
+				return "device " + request.minTickRate + "-" + request.maxTickRate;
+
+			return null;
+		}
+
+	}
+
+	private static Device add(TickManagerCache tm, Device d)
+	{
+		d.tm = tm;
+		tm.addNode( d.node, d.machine );
+		return d;
+	}
+
+	private static void tick(TickManagerCache tm, int ticks)
+	{
+		for (int x = 0; x < ticks; x++)
+			tm.onUpdateTick();
+	}
+
+	private static void assertTicks(Device d, long... expected)
+	{
+		List<Long> list = new ArrayList<Long>();
+		for (long t : expected)
+			list.add( t );
+
+		assertEquals( list, d.ticks );
+	}
+
+	@Test
+	public void testFixedRate()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		Device d = add( tm, new Device( new TickingRequest( 5, 5, false, false ) ) );
+
+		tick( tm, 20 );
+		assertTicks( d, 5, 10, 15, 20 );
+		assertEquals( Integer.valueOf( 5 ), d.sinceLast.get( 1 ) );
+	}
+
+	@Test
+	public void testModulation()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+
+		// starts halfway between the rates, at 10.
+		Device d = add( tm, new Device( new TickingRequest( 1, 20, false, false ) ) );
+		d.then( TickRateModulation.FASTER, TickRateModulation.SLOWER, TickRateModulation.URGENT, TickRateModulation.SAME, TickRateModulation.IDLE );
+
+		tick( tm, 60 );
+
+		// 10, then faster by 2, slower by 1, urgent runs on the next tick at the minimum rate, idle goes to the maximum.
+		assertTicks( d, 10, 18, 27, 28, 29, 49 );
+	}
+
+	@Test
+	public void testUrgent_neverTicksTwiceInOneTick()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		Device d = add( tm, new Device( new TickingRequest( 0, 10, false, false ) ) );
+		d.otherwise = TickRateModulation.URGENT;
+
+		tick( tm, 10 );
+		assertTicks( d, 5, 6, 7, 8, 9, 10 );
+	}
+
+	@Test
+	public void testSleepAndWake()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		Device d = add( tm, new Device( new TickingRequest( 2, 2, false, false ) ) );
+		d.then( TickRateModulation.SAME, TickRateModulation.SLEEP );
+
+		tick( tm, 10 );
+		assertTicks( d, 2, 4 );
+
+		assertTrue( tm.wakeDevice( d.node ) );
+		assertFalse( tm.wakeDevice( d.node ) );
+
+		tick( tm, 4 );
+		assertTicks( d, 2, 4, 12, 14 );
+		assertEquals( Integer.valueOf( 2 ), d.sinceLast.get( 2 ) );
+	}
+
+	@Test
+	public void testSleep_fromOutsideTheTick()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		Device d = add( tm, new Device( new TickingRequest( 3, 3, false, false ) ) );
+
+		tick( tm, 4 );
+		assertTrue( tm.sleepDevice( d.node ) );
+		assertFalse( tm.sleepDevice( d.node ) );
+
+		tick( tm, 20 );
+		assertTicks( d, 3 );
+	}
+
+	@Test
+	public void testAlert_ticksOnNextTickOnce()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		Device d = add( tm, new Device( new TickingRequest( 5, 50, true, true ) ) );
+
+		tick( tm, 10 );
+		assertTicks( d );
+
+		assertTrue( tm.alertDevice( d.node ) );
+
+		// alerting again before it ran replaces the pending tick.
+		assertTrue( tm.alertDevice( d.node ) );
+
+		tick( tm, 1 );
+		assertTicks( d, 11 );
+
+		tick( tm, 5 );
+		assertTicks( d, 11, 16 );
+	}
+
+	@Test
+	public void testAlert_notAlertable()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		Device d = add( tm, new Device( new TickingRequest( 5, 5, true, false ) ) );
+
+		assertFalse( tm.alertDevice( d.node ) );
+		tick( tm, 20 );
+		assertTicks( d );
+	}
+
+	@Test
+	public void testRemoveNode_stopsTicking()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		Device d = add( tm, new Device( new TickingRequest( 2, 2, false, true ) ) );
+		Device other = add( tm, new Device( new TickingRequest( 2, 2, false, false ) ) );
+
+		tick( tm, 2 );
+		tm.removeNode( d.node, d.machine );
+		assertFalse( tm.alertDevice( d.node ) );
+
+		tick( tm, 4 );
+		assertTicks( d, 2 );
+		assertTicks( other, 2, 4, 6 );
+	}
+
+	@Test
+	public void testManyDevices_farRates()
+	{
+		TickManagerCache tm = new TickManagerCache( null );
+		List<Device> devices = new ArrayList<Device>();
+		for (int x = 1; x <= 600; x++)
+			devices.add( add( tm, new Device( new TickingRequest( x, x, false, false ) ) ) );
+
+		tick( tm, 1200 );
+
+		for (int x = 1; x <= 600; x++)
+		{
+			List<Long> ticks = devices.get( x - 1 ).ticks;
+			assertEquals( 1200 / x, ticks.size() );
+			for (int y = 0; y < ticks.size(); y++)
+				assertEquals( (long) x * (y + 1), (long) ticks.get( y ) );
+		}
+	}
+
+}
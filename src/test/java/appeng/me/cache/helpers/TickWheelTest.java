@@ -0,0 +1,219 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache.helpers;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import appeng.api.networking.ticking.TickingRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests for {@link TickWheel}
+ */
+public class TickWheelTest
+{
+
+	private static TickTracker tracker()
+	{
+		return new TickTracker( new TickingRequest( 1, 1, false, false ), null, null, 0, null );
+	}
+
+	/**
+	 * polls and advances the wheel tick by tick, recording the ticks each tracker came due on.
+	 */
+	private static Map<TickTracker, List<Long>> run(TickWheel wheel, long from, long to)
+	{
+		Map<TickTracker, List<Long>> due = new HashMap<TickTracker, List<Long>>();
+
+		for (long tick = from; tick <= to; tick++)
+		{
+			TickTracker tt;
+			while ((tt = wheel.poll()) != null)
+			{
+				List<Long> ticks = due.get( tt );
+				if ( ticks == null )
+					due.put( tt, ticks = new ArrayList<Long>() );
+
+				ticks.add( tick );
+			}
+
+			wheel.advance();
+		}
+
+		return due;
+	}
+
+	private static void assertDueOnce(Map<TickTracker, List<Long>> due, TickTracker tt, long tick)
+	{
+		List<Long> ticks = due.get( tt );
+		assertEquals( "due on " + ticks + " instead of " + tick, 1, ticks == null ? 0 : ticks.size() );
+		assertEquals( tick, (long) ticks.get( 0 ) );
+	}
+
+	@Test
+	public void testPoll_onlyCurrentTick()
+	{
+		TickWheel wheel = new TickWheel( 1 );
+		TickTracker now = tracker();
+		TickTracker later = tracker();
+
+		wheel.schedule( now, 1 );
+		wheel.schedule( later, 2 );
+
+		assertTrue( wheel.poll() == now );
+		assertNull( wheel.poll() );
+
+		wheel.advance();
+		assertTrue( wheel.poll() == later );
+		assertNull( wheel.poll() );
+	}
+
+	@Test
+	public void testSchedule_pastTickRunsNow()
+	{
+		TickWheel wheel = new TickWheel( 100 );
+		TickTracker tt = tracker();
+
+		wheel.schedule( tt, 20 );
+		assertTrue( wheel.poll() == tt );
+	}
+
+	@Test
+	public void testNearSlots_rollOver()
+	{
+		TickWheel wheel = new TickWheel( 200 );
+		TickTracker a = tracker();
+		TickTracker b = tracker();
+		TickTracker c = tracker();
+		TickTracker d = tracker();
+
+		// the last near slot, and the ones that wrap around onto slots already passed.
+		wheel.schedule( a, 255 );
+		wheel.schedule( b, 256 );
+		wheel.schedule( c, 300 );
+		wheel.schedule( d, 455 );
+
+		Map<TickTracker, List<Long>> due = run( wheel, 200, 1000 );
+		assertDueOnce( due, a, 255 );
+		assertDueOnce( due, b, 256 );
+		assertDueOnce( due, c, 300 );
+		assertDueOnce( due, d, 455 );
+	}
+
+	@Test
+	public void testFarSlots_rollOver()
+	{
+		TickWheel wheel = new TickWheel( 10 );
+		TickTracker nextBlock = tracker();
+		TickTracker blockStart = tracker();
+		TickTracker farEdge = tracker();
+		TickTracker beyond = tracker();
+
+		wheel.schedule( nextBlock, 10 + 256 );
+		wheel.schedule( blockStart, 512 );
+		wheel.schedule( farEdge, 255 * 256 + 17 );
+
+		// further out than the far level reaches, it waits in the last far slot and is placed again.
+		wheel.schedule( beyond, 70000 );
+
+		Map<TickTracker, List<Long>> due = run( wheel, 10, 80000 );
+		assertDueOnce( due, nextBlock, 10 + 256 );
+		assertDueOnce( due, blockStart, 512 );
+		assertDueOnce( due, farEdge, 255 * 256 + 17 );
+		assertDueOnce( due, beyond, 70000 );
+	}
+
+	@Test
+	public void testCancel_keepsRestOfSlot()
+	{
+		TickWheel wheel = new TickWheel( 1 );
+		TickTracker first = tracker();
+		TickTracker middle = tracker();
+		TickTracker last = tracker();
+		TickTracker far = tracker();
+
+		wheel.schedule( first, 5 );
+		wheel.schedule( middle, 5 );
+		wheel.schedule( last, 5 );
+		wheel.schedule( far, 1000 );
+
+		wheel.cancel( middle );
+		wheel.cancel( far );
+
+		// cancelling twice is harmless.
+		wheel.cancel( far );
+
+		Map<TickTracker, List<Long>> due = run( wheel, 1, 2000 );
+		assertDueOnce( due, first, 5 );
+		assertDueOnce( due, last, 5 );
+		assertNull( due.get( middle ) );
+		assertNull( due.get( far ) );
+	}
+
+	@Test
+	public void testSchedule_replacesPendingTick()
+	{
+		TickWheel wheel = new TickWheel( 1 );
+		TickTracker tt = tracker();
+
+		wheel.schedule( tt, 600 );
+		wheel.schedule( tt, 3 );
+		wheel.schedule( tt, 40 );
+
+		Map<TickTracker, List<Long>> due = run( wheel, 1, 1000 );
+		assertDueOnce( due, tt, 40 );
+	}
+
+	@Test
+	public void testReschedule_whileTicking()
+	{
+		TickWheel wheel = new TickWheel( 1 );
+		TickTracker tt = tracker();
+		wheel.schedule( tt, 1 );
+
+		// a fixed rate, rescheduled from its own tick the way the tick manager does.
+		List<Long> ticks = new ArrayList<Long>();
+		for (long tick = 1; tick <= 1000; tick++)
+		{
+			TickTracker polled;
+			while ((polled = wheel.poll()) != null)
+			{
+				ticks.add( tick );
+				wheel.schedule( polled, tick + 7 );
+			}
+
+			wheel.advance();
+		}
+
+		assertEquals( 143, ticks.size() );
+		for (int x = 0; x < ticks.size(); x++)
+			assertEquals( 1 + x * 7, (long) ticks.get( x ) );
+	}
+
+}
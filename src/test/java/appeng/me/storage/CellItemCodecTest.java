@@ -0,0 +1,218 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.HashItemList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+/**
+ * Tests for {@link CellItemCodec}
+ */
+public class CellItemCodecTest
+{
+
+	@BeforeClass
+	public static void registerItems()
+	{
+		Bootstrap.func_151354_b();
+	}
+
+	private static IAEItemStack stack(Item item, int damage, long size, String name)
+	{
+		ItemStack is = new ItemStack( item, 1, damage );
+		if ( name != null )
+		{
+			NBTTagCompound tag = new NBTTagCompound();
+			tag.setString( "name", name );
+			is.setTagCompound( tag );
+		}
+
+		IAEItemStack ais = AEItemStack.create( is );
+		ais.setStackSize( size );
+		return ais;
+	}
+
+	private static HashItemList decode(byte[] packed, Map<IAEItemStack, Integer> offsets) throws IOException
+	{
+		HashItemList out = new HashItemList();
+		CellItemCodec.decode( packed, out, offsets );
+		return out;
+	}
+
+	private static void assertStored(HashItemList list, IAEItemStack expected)
+	{
+		IAEItemStack found = list.findPrecise( expected );
+		assertNotNull( "missing " + expected, found );
+		assertEquals( expected.getStackSize(), found.getStackSize() );
+	}
+
+	@Test
+	public void testRoundTrip_keepsEveryStack() throws IOException
+	{
+		HashItemList items = new HashItemList();
+		items.add( stack( Items.stick, 0, 64, null ) );
+		items.add( stack( Items.stick, 3, 1, null ) );
+		items.add( stack( Items.paper, 0, 12, "a" ) );
+		items.add( stack( Items.paper, 0, 7, "b" ) );
+		items.add( stack( Items.diamond_sword, 1200, 1, "a" ) );
+
+		Map<IAEItemStack, Integer> offsets = new HashMap<IAEItemStack, Integer>();
+		HashItemList decoded = decode( CellItemCodec.encode( items, offsets ), new HashMap<IAEItemStack, Integer>() );
+
+		assertEquals( 5, offsets.size() );
+		assertEquals( 5, decoded.size() );
+		for (IAEItemStack is : items)
+			assertStored( decoded, is );
+	}
+
+	@Test
+	public void testRoundTrip_wideDamageAndCount() throws IOException
+	{
+		HashItemList items = new HashItemList();
+		IAEItemStack highDamage = stack( Items.stick, 40000, 5, null );
+		IAEItemStack hugeCount = stack( Items.paper, 0, Integer.MAX_VALUE * 3L, null );
+		items.add( highDamage );
+		items.add( hugeCount );
+
+		HashItemList decoded = decode( CellItemCodec.encode( items, new HashMap<IAEItemStack, Integer>() ), new HashMap<IAEItemStack, Integer>() );
+
+		assertStored( decoded, highDamage );
+		assertStored( decoded, hugeCount );
+	}
+
+	@Test
+	public void testPatchCount_changesOnlyThatStack() throws IOException
+	{
+		HashItemList items = new HashItemList();
+		IAEItemStack a = stack( Items.stick, 0, 10, null );
+		IAEItemStack b = stack( Items.paper, 0, 20, "b" );
+		items.add( a );
+		items.add( b );
+
+		Map<IAEItemStack, Integer> offsets = new HashMap<IAEItemStack, Integer>();
+		byte[] packed = CellItemCodec.encode( items, offsets );
+
+		CellItemCodec.patchCount( packed, offsets.get( items.findPrecise( a ) ), Integer.MAX_VALUE + 10L );
+
+		HashItemList decoded = decode( packed, new HashMap<IAEItemStack, Integer>() );
+		assertEquals( Integer.MAX_VALUE + 10L, decoded.findPrecise( a ).getStackSize() );
+		assertStored( decoded, b );
+	}
+
+	@Test
+	public void testDecode_offsetsPointAtRecords() throws IOException
+	{
+		HashItemList items = new HashItemList();
+		items.add( stack( Items.stick, 0, 10, null ) );
+		items.add( stack( Items.paper, 2, 20, "x" ) );
+
+		byte[] packed = CellItemCodec.encode( items, new HashMap<IAEItemStack, Integer>() );
+
+		Map<IAEItemStack, Integer> offsets = new HashMap<IAEItemStack, Integer>();
+		HashItemList decoded = decode( packed, offsets );
+
+		// patching through the decoded offsets has to land on the same records.
+		for (IAEItemStack is : decoded)
+			CellItemCodec.patchCount( packed, offsets.get( is ), is.getStackSize() + 1 );
+
+		HashItemList patched = decode( packed, new HashMap<IAEItemStack, Integer>() );
+		for (IAEItemStack is : decoded)
+			assertEquals( is.getStackSize() + 1, patched.findPrecise( is ).getStackSize() );
+	}
+
+	@Test
+	public void testDecode_readsNarrowRecords() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream( bytes );
+		data.writeByte( 1 );
+		data.writeShort( 0 );
+		data.writeShort( 1 );
+		data.writeShort( Item.getIdFromItem( Items.stick ) );
+		data.writeShort( 7 );
+		data.writeShort( -1 );
+		data.writeInt( 1000 );
+		data.flush();
+
+		Map<IAEItemStack, Integer> offsets = new HashMap<IAEItemStack, Integer>();
+		HashItemList decoded = decode( bytes.toByteArray(), offsets );
+
+		assertStored( decoded, stack( Items.stick, 7, 1000, null ) );
+
+		// the old layout can't be patched, the cell is written again on its next change.
+		assertTrue( offsets.isEmpty() );
+	}
+
+	@Test
+	public void testDecode_unknownVersionFails()
+	{
+		HashItemList items = new HashItemList();
+		items.add( stack( Items.stick, 0, 10, null ) );
+
+		byte[] packed = CellItemCodec.encode( items, new HashMap<IAEItemStack, Integer>() );
+		packed[0] = 99;
+
+		try
+		{
+			decode( packed, new HashMap<IAEItemStack, Integer>() );
+			fail( "unknown version was decoded" );
+		}
+		catch (IOException expected)
+		{
+			// the caller keeps the data as it is.
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testDecode_truncatedFails() throws IOException
+	{
+		HashItemList items = new HashItemList();
+		items.add( stack( Items.stick, 0, 10, null ) );
+
+		byte[] packed = CellItemCodec.encode( items, new HashMap<IAEItemStack, Integer>() );
+		byte[] truncated = new byte[packed.length - 4];
+		System.arraycopy( packed, 0, truncated, 0, truncated.length );
+
+		decode( truncated, new HashMap<IAEItemStack, Integer>() );
+	}
+
+}
@@ -0,0 +1,236 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.tile.storage;
+
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import appeng.api.AEApi;
+import appeng.api.config.Actionable;
+import appeng.api.config.FuzzyMode;
+import appeng.api.implementations.items.IStorageCell;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.IMEInventoryHandler;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.me.storage.CellInventory;
+import appeng.tile.inventory.AppEngInternalInventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+
+/**
+ * Tests for how {@link TileDrive} hands out cells with changes not yet written to them
+ */
+public class TileDriveTest
+{
+
+	private static final BaseActionSource SRC = new BaseActionSource();
+
+	private static Item cellItem;
+
+	/**
+	 * a plain storage cell, the real ones register entities for their crafting components.
+	 */
+	private static class TestCell extends Item implements IStorageCell
+	{
+
+		@Override
+		public int getBytes(ItemStack cellItem)
+		{
+			return 1024;
+		}
+
+		@Override
+		public int BytePerType(ItemStack cell)
+		{
+			return 8;
+		}
+
+		@Override
+		public int getTotalTypes(ItemStack cellItem)
+		{
+			return 63;
+		}
+
+		@Override
+		public boolean isBlackListed(ItemStack cellItem, IAEItemStack requestedAddition)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean storableInStorageCell()
+		{
+			return false;
+		}
+
+		@Override
+		public boolean isStorageCell(ItemStack i)
+		{
+			return true;
+		}
+
+		@Override
+		public double getIdleDrain()
+		{
+			return 0;
+		}
+
+		@Override
+		public boolean isEditable(ItemStack is)
+		{
+			return false;
+		}
+
+		@Override
+		public IInventory getUpgradesInventory(ItemStack is)
+		{
+			return new AppEngInternalInventory( null, 0 );
+		}
+
+		@Override
+		public IInventory getConfigInventory(ItemStack is)
+		{
+			return new AppEngInternalInventory( null, 0 );
+		}
+
+		@Override
+		public FuzzyMode getFuzzyMode(ItemStack is)
+		{
+			return FuzzyMode.IGNORE_ALL;
+		}
+
+		@Override
+		public void setFuzzyMode(ItemStack is, FuzzyMode fzMode)
+		{
+		}
+
+	}
+
+	/**
+	 * a drive outside of any world.
+	 */
+	private static class Drive extends TileDrive
+	{
+
+		int saves = 0;
+
+		@Override
+		public void saveChanges(IMEInventory cellInventory)
+		{
+			saves++;
+		}
+
+	}
+
+	@BeforeClass
+	public static void setUp()
+	{
+		Bootstrap.func_151354_b();
+		cellItem = new TestCell();
+	}
+
+	private static IAEItemStack diamonds(long amount)
+	{
+		return AEApi.instance().storage().createItemStack( new ItemStack( Items.diamond ) ).setStackSize( amount );
+	}
+
+	private static long storedDiamonds(ItemStack cell)
+	{
+		IItemList<IAEItemStack> list = CellInventory.getCell( cell, null ).getAvailableItems( AEApi.instance().storage().createItemList() );
+		IAEItemStack stored = list.findPrecise( diamonds( 1 ) );
+		return stored == null ? 0 : stored.getStackSize();
+	}
+
+	/**
+	 * takes the cell out the way a shift click does, copying the stack before the slot is emptied.
+	 */
+	private static ItemStack shiftClickOut(TileDrive drive, int slot)
+	{
+		ItemStack taken = drive.getStackInSlot( slot ).copy();
+		drive.setInventorySlotContents( slot, null );
+		return taken;
+	}
+
+	@Test
+	public void testRemovedCell_keepsPendingInsert()
+	{
+		Drive drive = new Drive();
+		ItemStack cell = new ItemStack( cellItem );
+		drive.setInventorySlotContents( 0, cell );
+
+		IMEInventoryHandler<IAEItemStack> inv = CellInventory.getCell( cell, drive );
+		assertNull( inv.injectItems( diamonds( 10 ), Actionable.MODULATE, SRC ) );
+
+		ItemStack taken = shiftClickOut( drive, 0 );
+
+		// the end of the tick comes too late for the copy.
+		CellInventory.flushDirtyCells();
+
+		assertEquals( 10, storedDiamonds( taken ) );
+		assertEquals( 1, drive.saves );
+	}
+
+	@Test
+	public void testRemovedCell_keepsPendingExtract()
+	{
+		Drive drive = new Drive();
+		ItemStack cell = new ItemStack( cellItem );
+		drive.setInventorySlotContents( 0, cell );
+
+		IMEInventoryHandler<IAEItemStack> inv = CellInventory.getCell( cell, drive );
+		inv.injectItems( diamonds( 10 ), Actionable.MODULATE, SRC );
+		CellInventory.flushDirtyCells();
+
+		assertEquals( 4, inv.extractItems( diamonds( 4 ), Actionable.MODULATE, SRC ).getStackSize() );
+
+		ItemStack taken = shiftClickOut( drive, 0 );
+		CellInventory.flushDirtyCells();
+
+		assertEquals( 6, storedDiamonds( taken ) );
+	}
+
+	@Test
+	public void testDecreasedSlot_keepsPendingInsert()
+	{
+		Drive drive = new Drive();
+		ItemStack cell = new ItemStack( cellItem );
+		drive.setInventorySlotContents( 0, cell );
+
+		IMEInventoryHandler<IAEItemStack> inv = CellInventory.getCell( cell, drive );
+		inv.injectItems( diamonds( 10 ), Actionable.MODULATE, SRC );
+
+		// automation pulling the cell out.
+		ItemStack taken = drive.decrStackSize( 0, 1 ).copy();
+		CellInventory.flushDirtyCells();
+
+		assertEquals( 10, storedDiamonds( taken ) );
+	}
+
+}
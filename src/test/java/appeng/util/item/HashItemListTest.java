@@ -0,0 +1,285 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests for {@link HashItemList}
+ */
+public class HashItemListTest
+{
+
+	@BeforeClass
+	public static void registerItems()
+	{
+		Bootstrap.func_151354_b();
+	}
+
+	private static AEItemStack stack(Item item, int damage, long size)
+	{
+		AEItemStack is = AEItemStack.create( new ItemStack( item, 1, damage ) );
+		is.setStackSize( size );
+		return is;
+	}
+
+	/**
+	 * a stack whose hash lands in the same bucket as every other colliding stack.
+	 */
+	private static AEItemStack colliding(int damage, long size)
+	{
+		AEItemStack is = stack( Items.stick, damage, size );
+		is.def.myHash = 42;
+		return is;
+	}
+
+	private static int countEntries(HashItemList list)
+	{
+		Set<IAEItemStack> seen = Collections.newSetFromMap( new IdentityHashMap<IAEItemStack, Boolean>() );
+		for (IAEItemStack is : list)
+			assertTrue( "visited twice: " + is, seen.add( is ) );
+
+		return seen.size();
+	}
+
+	@Test
+	public void testAdd_mergesSameItem()
+	{
+		HashItemList list = new HashItemList();
+		list.add( stack( Items.stick, 0, 5 ) );
+		list.add( stack( Items.stick, 0, 7 ) );
+		list.add( stack( Items.stick, 1, 3 ) );
+
+		assertEquals( 12, list.findPrecise( stack( Items.stick, 0, 1 ) ).getStackSize() );
+		assertEquals( 3, list.findPrecise( stack( Items.stick, 1, 1 ) ).getStackSize() );
+		assertEquals( 2, countEntries( list ) );
+	}
+
+	@Test
+	public void testAdd_copiesInput()
+	{
+		HashItemList list = new HashItemList();
+		AEItemStack input = stack( Items.stick, 0, 5 );
+		list.add( input );
+		list.add( stack( Items.stick, 0, 5 ) );
+
+		assertEquals( 5, input.getStackSize() );
+		assertEquals( 10, list.findPrecise( input ).getStackSize() );
+	}
+
+	@Test
+	public void testCollisions_keepStacksApart()
+	{
+		HashItemList list = new HashItemList();
+		for (int x = 0; x < 20; x++)
+			list.add( colliding( x, x + 1 ) );
+
+		for (int x = 0; x < 20; x++)
+			assertEquals( x + 1, list.findPrecise( colliding( x, 1 ) ).getStackSize() );
+
+		assertNull( list.findPrecise( colliding( 20, 1 ) ) );
+		assertEquals( 20, countEntries( list ) );
+	}
+
+	@Test
+	public void testRemoval_keepsCollisionChains()
+	{
+		HashItemList list = new HashItemList();
+		for (int x = 0; x < 20; x++)
+			list.add( colliding( x, 10 ) );
+
+		// emptied stacks are dropped by the next walk over the list.
+		for (int x = 0; x < 20; x += 2)
+			list.add( colliding( x, -10 ) );
+
+		assertEquals( 10, countEntries( list ) );
+		assertEquals( 10, list.size() );
+
+		for (int x = 0; x < 20; x++)
+		{
+			IAEItemStack found = list.findPrecise( colliding( x, 1 ) );
+			if ( x % 2 == 0 )
+				assertNull( found );
+			else
+				assertEquals( 10, found.getStackSize() );
+		}
+
+		// the freed buckets are reused.
+		list.add( colliding( 4, 3 ) );
+		assertEquals( 3, list.findPrecise( colliding( 4, 1 ) ).getStackSize() );
+		assertEquals( 11, countEntries( list ) );
+	}
+
+	@Test
+	public void testIteratorRemove_visitsEveryEntryOnce()
+	{
+		HashItemList list = new HashItemList();
+		for (int x = 0; x < 100; x++)
+			list.add( stack( Items.stick, x, x + 1 ) );
+
+		int visited = 0;
+		Iterator<IAEItemStack> i = list.iterator();
+		while (i.hasNext())
+		{
+			IAEItemStack is = i.next();
+			visited++;
+
+			if ( is.getItemDamage() % 3 == 0 )
+				i.remove();
+		}
+
+		assertEquals( 100, visited );
+		assertEquals( 66, countEntries( list ) );
+
+		for (int x = 0; x < 100; x++)
+		{
+			IAEItemStack found = list.findPrecise( stack( Items.stick, x, 1 ) );
+			if ( x % 3 == 0 )
+				assertNull( found );
+			else
+				assertEquals( x + 1, found.getStackSize() );
+		}
+	}
+
+	@Test
+	public void testIterator_walksSnapshot()
+	{
+		HashItemList list = new HashItemList();
+		for (int x = 0; x < 100; x++)
+			list.add( stack( Items.stick, x, 1 ) );
+
+		Set<IAEItemStack> seen = Collections.newSetFromMap( new IdentityHashMap<IAEItemStack, Boolean>() );
+		for (IAEItemStack is : list)
+		{
+			assertTrue( "visited twice: " + is, seen.add( is ) );
+
+			// grows the list, then empties this stick and lets a second walk remove it, moving another entry.
+			list.add( stack( Items.paper, is.getItemDamage(), 1 ) );
+			list.add( stack( Items.stick, is.getItemDamage(), -1 ) );
+			countEntries( list );
+		}
+
+		assertEquals( 100, seen.size() );
+		for (IAEItemStack is : seen)
+			assertEquals( Items.stick, is.getItem() );
+
+		assertEquals( 100, list.size() );
+		assertNull( list.findPrecise( stack( Items.stick, 0, 1 ) ) );
+	}
+
+	@Test
+	public void testIteratorRemove_skipsReplacedEntry()
+	{
+		HashItemList list = new HashItemList();
+		list.add( stack( Items.stick, 0, 5 ) );
+
+		Iterator<IAEItemStack> i = list.iterator();
+		assertTrue( i.hasNext() );
+		i.next();
+
+		// the snapshot's stack is gone and a new one for the same item took its place.
+		list.add( stack( Items.stick, 0, -5 ) );
+		assertEquals( 0, countEntries( list ) );
+		list.add( stack( Items.stick, 0, 3 ) );
+
+		i.remove();
+		assertEquals( 3, list.findPrecise( stack( Items.stick, 0, 1 ) ).getStackSize() );
+	}
+
+	@Test
+	public void testGrowth_keepsEveryStack()
+	{
+		HashItemList list = new HashItemList();
+		for (int x = 0; x < 5000; x++)
+			list.add( stack( x % 2 == 0 ? Items.stick : Items.paper, x, x + 1 ) );
+
+		assertEquals( 5000, list.size() );
+		assertEquals( 5000, countEntries( list ) );
+
+		for (int x = 0; x < 5000; x++)
+			assertEquals( x + 1, list.findPrecise( stack( x % 2 == 0 ? Items.stick : Items.paper, x, 1 ) ).getStackSize() );
+	}
+
+	@Test
+	public void testFuzzy_followsMutation()
+	{
+		HashItemList list = new HashItemList();
+		list.add( stack( Items.diamond_sword, 0, 1 ) );
+		list.add( stack( Items.diamond_sword, 100, 1 ) );
+		list.add( stack( Items.diamond_sword, 1500, 1 ) );
+		list.add( stack( Items.iron_sword, 0, 1 ) );
+
+		AEItemStack filter = stack( Items.diamond_sword, 0, 1 );
+		assertEquals( 3, list.findFuzzy( filter, FuzzyMode.IGNORE_ALL ).size() );
+
+		// the index built by the first search has to follow later changes.
+		list.add( stack( Items.diamond_sword, 100, -1 ) );
+		list.add( stack( Items.diamond_sword, 700, 1 ) );
+		countEntries( list );
+
+		Collection<IAEItemStack> found = list.findFuzzy( filter, FuzzyMode.IGNORE_ALL );
+		assertEquals( 3, found.size() );
+
+		boolean has700 = false;
+		for (IAEItemStack is : found)
+		{
+			assertTrue( is.getItem() == Items.diamond_sword );
+			assertFalse( is.getItemDamage() == 100 );
+			has700 |= is.getItemDamage() == 700;
+		}
+		assertTrue( has700 );
+
+		assertEquals( 1, list.findFuzzy( stack( Items.iron_sword, 0, 1 ), FuzzyMode.IGNORE_ALL ).size() );
+		assertNotNull( list.findPrecise( stack( Items.diamond_sword, 700, 1 ) ) );
+	}
+
+	@Test
+	public void testFuzzy_unknownItem()
+	{
+		HashItemList list = new HashItemList();
+		list.add( stack( Items.stick, 0, 1 ) );
+
+		assertTrue( list.findFuzzy( stack( Items.paper, 0, 1 ), FuzzyMode.IGNORE_ALL ).isEmpty() );
+		assertTrue( list.findFuzzy( null, FuzzyMode.IGNORE_ALL ).isEmpty() );
+	}
+
+}